@@ -0,0 +1,54 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Realistic payment groups shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    // Configured like Spring Boot's ObjectMapper (JavaTimeModule, no timestamps for dates)
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    static List<PaymentGroupRecord> groups(String prefix, int groupCount, int paymentsPerGroup) {
+        List<PaymentGroupRecord> groups = new ArrayList<>(groupCount);
+        for (int g = 0; g < groupCount; g++) {
+            String externalId = prefix + "-" + g;
+            List<PaymentRecord> payments = new ArrayList<>(paymentsPerGroup);
+            for (int p = 0; p < paymentsPerGroup; p++) {
+                payments.add(new PaymentRecord(
+                        externalId + "-e2e-" + p,
+                        new PaymentRecord.InstructedAmount("EUR", BigDecimal.valueOf(10_000 + g * 31L + p, 2)),
+                        "Creditor " + p,
+                        new PaymentRecord.CreditorAccount("LV80BANK0000435195001"),
+                        "Invoice " + g + "/" + p
+                ));
+            }
+            groups.add(new PaymentGroupRecord(
+                    new PaymentGroupRecord.DebtorAccount("EE382200221020145685"),
+                    "Debtor " + g,
+                    LocalDate.of(2025, 1, 1).plusDays(g % 365),
+                    payments,
+                    externalId,
+                    "benchmark-user",
+                    "benchmark-tcif",
+                    "EE",
+                    "benchmark"
+            ));
+        }
+        return groups;
+    }
+}
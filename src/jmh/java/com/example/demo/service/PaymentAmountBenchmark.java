@@ -0,0 +1,54 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-payment amount handling of an import: validation and the per-currency metrics recorded after
+ * commit. Run with {@code -prof gc} to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentAmountBenchmark {
+
+    @Param({"1000"})
+    private int groups;
+
+    @Param({"5"})
+    private int paymentsPerGroup;
+
+    private List<PaymentGroupRecord> records;
+    private List<PaymentRecord> payments;
+    private PaymentValidator validator;
+    private PaymentMetrics metrics;
+
+    @Setup
+    public void setUp() {
+        records = BenchmarkData.groups("amount", groups, paymentsPerGroup);
+        payments = records.stream().flatMap(record -> record.payments().stream()).toList();
+        validator = new PaymentValidator();
+        metrics = new PaymentMetrics(new SimpleMeterRegistry(), null);
+    }
+
+    @Benchmark
+    public void validate(Blackhole blackhole) {
+        for (PaymentGroupRecord record : records) {
+            blackhole.consume(validator.validate(record));
+        }
+    }
+
+    @Benchmark
+    public void recordPayments() {
+        metrics.recordPayments(payments);
+    }
+}
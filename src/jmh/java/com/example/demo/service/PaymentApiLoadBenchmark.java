@@ -0,0 +1,124 @@
+package com.example.demo.service;
+
+import com.example.demo.PaymentsApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the REST API with platform threads against {@code spring.threads.virtual.enabled=true}.
+ * Each invocation fires {@code concurrency} requests at once over HTTP and waits for all of them, so
+ * the score is the time to drain one wave. Needs the PostgreSQL from docker-compose; Kafka is not used.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentApiLoadBenchmark {
+
+    private static final String PREFIX = "bench-load";
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"50", "400"})
+    private int concurrency;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private ObjectMapper objectMapper;
+    private List<HttpRequest> imports;
+    private int run;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        context = new SpringApplicationBuilder(PaymentsApplication.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        // Queue like Tomcat does with platform threads instead of shedding load, so both modes drain every wave
+                        "--app.virtual-threads.acquire-timeout-ms=600000",
+                        "--logging.level.root=WARN",
+                        "--management.tracing.enabled=false",
+                        "--app.outbox.relay.enabled=false",
+                        "--spring.kafka.listener.auto-startup=false",
+                        "--spring.kafka.admin.auto-create=false",
+                        "--spring.kafka.admin.fail-fast=false");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/payments";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        objectMapper = BenchmarkData.objectMapper();
+        // Something to page through
+        await(List.of(importRequest(BenchmarkData.groups(PREFIX + "-seed-" + System.nanoTime(), 500, 5))));
+    }
+
+    // External ids must be unique per invocation, so every wave imports fresh groups
+    @Setup(Level.Invocation)
+    public void nextImports() throws Exception {
+        String prefix = PREFIX + "-" + System.nanoTime() + "-" + run++;
+        imports = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            imports.add(importRequest(BenchmarkData.groups(prefix + "-" + i, 1, 5)));
+        }
+    }
+
+    @Benchmark
+    public int readPages() {
+        List<HttpRequest> requests = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            requests.add(HttpRequest.newBuilder(URI.create(baseUrl + "/page?limit=50&after=" + i * 10)).GET().build());
+        }
+        return await(requests);
+    }
+
+    @Benchmark
+    public int importGroups() {
+        return await(imports);
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() {
+        client.close();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM payment_groups WHERE external_id LIKE ?", Long.class, PREFIX + "-%");
+        context.getBean(PaymentService.class).deleteGroups(ids);
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE event_key LIKE ?", PREFIX + "-%");
+        context.close();
+    }
+
+    private HttpRequest importRequest(Object groups) throws Exception {
+        return HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(groups)))
+                .build();
+    }
+
+    // Rejected or failed requests would make the faster mode look better, so they fail the benchmark
+    private int await(List<HttpRequest> requests) {
+        List<CompletableFuture<HttpResponse<Void>>> responses = requests.stream()
+                .map(request -> client.sendAsync(request, HttpResponse.BodyHandlers.discarding()))
+                .toList();
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            int status = response.join().statusCode();
+            if (status != 200) {
+                throw new IllegalStateException("Request failed with status " + status);
+            }
+        }
+        return responses.size();
+    }
+}
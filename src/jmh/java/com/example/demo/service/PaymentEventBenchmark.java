@@ -0,0 +1,66 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.model.PaymentGroup;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event work of {@code KafkaProducerService}: building the event from the saved entity and
+ * serializing it as JSON or with {@link PaymentEventCodec}, plus decoding on the consumer side.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentEventBenchmark {
+
+    @Param({"1", "20"})
+    private int paymentsPerGroup;
+
+    private ObjectMapper objectMapper;
+    private PaymentGroup entity;
+    private PaymentGroupRecord event;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = BenchmarkData.objectMapper();
+        event = BenchmarkData.groups("event", 1, paymentsPerGroup).get(0);
+        entity = PaymentService.convertToEntity(event);
+        json = objectMapper.writeValueAsBytes(event);
+        binary = PaymentEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public PaymentGroupRecord fromEntity() {
+        return PaymentGroupRecord.from(entity);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return PaymentEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public PaymentGroupRecord decodeJson() throws IOException {
+        return objectMapper.readValue(json, PaymentGroupRecord.class);
+    }
+
+    @Benchmark
+    public Object decodeBinary() {
+        return PaymentEventCodec.decode(binary);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.service;
+
+import com.example.demo.PaymentsApplication;
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.model.PaymentGroup;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@code PaymentService.importPayments}: mapping, batched inserts and outbox rows in one
+ * transaction. Needs the PostgreSQL from docker-compose, or SPRING_DATASOURCE_URL/USERNAME/PASSWORD
+ * pointing elsewhere; Kafka is not used. Imported rows are removed after the run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentImportBenchmark {
+
+    private static final String PREFIX = "bench-import";
+
+    @Param({"100", "1000"})
+    private int groups;
+
+    @Param({"5"})
+    private int paymentsPerGroup;
+
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private final List<Long> importedIds = new ArrayList<>();
+    private List<PaymentGroupRecord> batch;
+    private int run;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(PaymentsApplication.class)
+                .web(WebApplicationType.NONE)
+                // Command line arguments, so they take precedence over application.properties
+                .run("--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--management.tracing.enabled=false",
+                        "--app.outbox.relay.enabled=false",
+                        "--spring.kafka.listener.auto-startup=false",
+                        "--spring.kafka.admin.auto-create=false",
+                        "--spring.kafka.admin.fail-fast=false");
+        paymentService = context.getBean(PaymentService.class);
+    }
+
+    // External ids must be unique per invocation, so every call imports fresh groups
+    @Setup(Level.Invocation)
+    public void nextBatch() {
+        batch = BenchmarkData.groups(PREFIX + "-" + System.nanoTime() + "-" + run++, groups, paymentsPerGroup);
+    }
+
+    @Benchmark
+    public List<PaymentGroup> importPayments() {
+        List<PaymentGroup> imported = paymentService.importPayments(batch);
+        imported.forEach(group -> importedIds.add(group.getId()));
+        return imported;
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() {
+        paymentService.deleteGroups(importedIds);
+        context.getBean(JdbcTemplate.class).update("DELETE FROM outbox_events WHERE event_key LIKE ?", PREFIX + "-%");
+        context.close();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupRecord;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request body parsing: the databind path of POST /api/payments versus the streaming reader of
+ * POST /api/payments/stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentJsonBenchmark {
+
+    private static final TypeReference<List<PaymentGroupRecord>> GROUP_LIST = new TypeReference<>() {
+    };
+
+    @Param({"100", "1000"})
+    private int groups;
+
+    @Param({"5"})
+    private int paymentsPerGroup;
+
+    private ObjectMapper objectMapper;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = BenchmarkData.objectMapper();
+        json = objectMapper.writeValueAsBytes(BenchmarkData.groups("json", groups, paymentsPerGroup));
+    }
+
+    @Benchmark
+    public List<PaymentGroupRecord> readList() throws IOException {
+        return objectMapper.readValue(json, GROUP_LIST);
+    }
+
+    @Benchmark
+    public void readStreaming(Blackhole blackhole) throws IOException {
+        try (PaymentGroupRecordReader reader = new PaymentGroupRecordReader(objectMapper, new ByteArrayInputStream(json))) {
+            while (reader.hasNext()) {
+                blackhole.consume(reader.next());
+            }
+        }
+    }
+}
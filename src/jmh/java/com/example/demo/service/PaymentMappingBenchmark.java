@@ -0,0 +1,42 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.model.PaymentGroup;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record to entity mapping done by {@code PaymentService.importPayments} before persisting.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentMappingBenchmark {
+
+    @Param({"1000"})
+    private int groups;
+
+    @Param({"5"})
+    private int paymentsPerGroup;
+
+    private List<PaymentGroupRecord> records;
+
+    @Setup
+    public void setUp() {
+        records = BenchmarkData.groups("mapping", groups, paymentsPerGroup);
+    }
+
+    @Benchmark
+    public void convertToEntity(Blackhole blackhole) {
+        for (PaymentGroupRecord record : records) {
+            PaymentGroup group = PaymentService.convertToEntity(record);
+            blackhole.consume(group);
+        }
+    }
+}
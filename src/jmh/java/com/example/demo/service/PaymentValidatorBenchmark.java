@@ -0,0 +1,96 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Field validation of an import: whole groups, and the IBAN and end-to-end id checks alone on valid
+ * and invalid values. Run with {@code -prof gc}; the valid paths should not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentValidatorBenchmark {
+
+    private static final String[] IBANS = {
+            "EE382200221020145685", "LV80BANK0000435195001", "DE89370400440532013000",
+            "FR1420041010050500013M02606", "GB29NWBK60161331926819", "MT84MALT011000012345MTLCAST001S"
+    };
+
+    private static final String[] INVALID_IBANS = {
+            "EE382200221020145686", "LV80BANK000043519500", "XX89370400440532013000", "de89370400440532013000"
+    };
+
+    private static final String[] INVALID_END_TO_END_IDS = {
+            "/leading-slash", "double//slash", "umlaut-ä", "x".repeat(36)
+    };
+
+    @Param({"1000"})
+    private int groups;
+
+    @Param({"5"})
+    private int paymentsPerGroup;
+
+    private List<PaymentGroupRecord> records;
+    private List<PaymentGroupRecord> invalidRecords;
+    private PaymentValidator validator;
+
+    @Setup
+    public void setUp() {
+        records = BenchmarkData.groups("validator", groups, paymentsPerGroup);
+        invalidRecords = new ArrayList<>(records.size());
+        for (int g = 0; g < records.size(); g++) {
+            PaymentGroupRecord record = records.get(g);
+            List<PaymentRecord> payments = new ArrayList<>(record.payments());
+            // One bad creditor IBAN and one bad end-to-end id per group
+            PaymentRecord first = payments.get(0);
+            payments.set(0, new PaymentRecord(INVALID_END_TO_END_IDS[g % INVALID_END_TO_END_IDS.length],
+                    first.instructedAmount(), first.creditorName(),
+                    new PaymentRecord.CreditorAccount(INVALID_IBANS[g % INVALID_IBANS.length]),
+                    first.remittanceInformationUnstructured()));
+            invalidRecords.add(new PaymentGroupRecord(record.debtorAccount(), record.debtorName(),
+                    record.requestedExecutionDate(), payments, record.externalId(), record.uname(),
+                    record.tcif(), record.country(), record.sourceSystem()));
+        }
+        validator = new PaymentValidator();
+    }
+
+    @Benchmark
+    public void validate(Blackhole blackhole) {
+        for (PaymentGroupRecord record : records) {
+            blackhole.consume(validator.validate(record));
+        }
+    }
+
+    @Benchmark
+    public void validateInvalid(Blackhole blackhole) {
+        for (PaymentGroupRecord record : invalidRecords) {
+            blackhole.consume(validator.validate(record));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public void ibanProblem(Blackhole blackhole) {
+        for (String iban : IBANS) {
+            blackhole.consume(PaymentValidator.ibanProblem(iban));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public void ibanProblemInvalid(Blackhole blackhole) {
+        for (String iban : INVALID_IBANS) {
+            blackhole.consume(PaymentValidator.ibanProblem(iban));
+        }
+    }
+}
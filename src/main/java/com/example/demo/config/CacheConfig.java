@@ -0,0 +1,11 @@
+package com.example.demo.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Cache advice runs outside the transaction advice, so a cache hit does not open a transaction
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+}
@@ -0,0 +1,47 @@
+package com.example.demo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.converter.BatchMessagingMessageConverter;
+import org.springframework.kafka.support.converter.RecordMessageConverter;
+
+@Configuration
+public class KafkaListenerConfig {
+
+    @Value("${app.kafka.consumer.batch.max-poll-records:500}")
+    private int batchMaxPollRecords;
+
+    // Converts JSON or binary record values to the listener parameter type (picked up by Boot's default factory)
+    @Bean
+    public RecordMessageConverter kafkaMessageConverter(ObjectMapper objectMapper) {
+        return new PaymentEventMessageConverter(objectMapper);
+    }
+
+    /**
+     * Container factory for {@code KafkaBatchConsumerService}: hands each poll to the listener as one
+     * list and commits its offsets once after the listener returns.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.kafka.consumer.batch.enabled", havingValue = "true")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            RecordMessageConverter kafkaMessageConverter) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setBatchMessageConverter(new BatchMessagingMessageConverter(kafkaMessageConverter));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.getContainerProperties().getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchMaxPollRecords));
+        return factory;
+    }
+}
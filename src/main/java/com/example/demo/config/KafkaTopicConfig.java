@@ -18,27 +18,34 @@ public class KafkaTopicConfig {
     @Value("${app.kafka.topics.future-payment.deleted}")
     private String deletedTopic;
 
+    // Upper bound for consumer parallelism; raising it on an existing topic moves keys to new partitions
+    @Value("${app.kafka.topics.partitions:6}")
+    private int partitions;
+
+    @Value("${app.kafka.topics.replicas:1}")
+    private int replicas;
+
     @Bean
     public NewTopic createdTopic() {
         return TopicBuilder.name(createdTopic)
-                .partitions(1)
-                .replicas(1)
+                .partitions(partitions)
+                .replicas(replicas)
                 .build();
     }
 
     @Bean
     public NewTopic modifiedTopic() {
         return TopicBuilder.name(modifiedTopic)
-                .partitions(1)
-                .replicas(1)
+                .partitions(partitions)
+                .replicas(replicas)
                 .build();
     }
 
     @Bean
     public NewTopic deletedTopic() {
         return TopicBuilder.name(deletedTopic)
-                .partitions(1)
-                .replicas(1)
+                .partitions(partitions)
+                .replicas(replicas)
                 .build();
     }
 }
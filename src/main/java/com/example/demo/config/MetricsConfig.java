@@ -0,0 +1,19 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Value("${app.metrics.max-currencies:50}")
+    private int maxCurrencies;
+
+    // Currency comes from the request payload, so cap its tag values to keep the number of series bounded
+    @Bean
+    public MeterFilter currencyTagLimit() {
+        return MeterFilter.maximumAllowableTags("payments", "currency", maxCurrencies, MeterFilter.deny());
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.config;
+
+import com.example.demo.service.PaymentEventCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.support.converter.ConversionException;
+import org.springframework.kafka.support.converter.JsonMessageConverter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Converts record values to listener parameters for both event formats: values starting with the
+ * {@link PaymentEventCodec} magic byte are decoded as binary, everything else is read as JSON.
+ * Detecting the format per record lets a topic switch formats without draining it first.
+ */
+public class PaymentEventMessageConverter extends JsonMessageConverter {
+
+    public PaymentEventMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected Object extractAndConvertValue(ConsumerRecord<?, ?> record, Type type) {
+        if (!(record.value() instanceof byte[] data) || !PaymentEventCodec.isBinary(data)) {
+            return super.extractAndConvertValue(record, type);
+        }
+        Object payload;
+        try {
+            payload = PaymentEventCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new ConversionException("Failed to decode binary event from " + record.topic(), record, e);
+        }
+        if (type instanceof Class<?> target && !target.isInstance(payload)) {
+            throw new ConversionException("Binary event " + payload.getClass().getSimpleName()
+                    + " cannot be converted to " + target.getSimpleName(), record, null);
+        }
+        return payload;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the {@code @Scheduled} tasks on Spring Boot's scheduler, sized by {@code spring.task.scheduling.pool.size}
+ * to one thread per task, so the frequent outbox relay never waits behind a long index rebuild or archive run.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,56 @@
+package com.example.demo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Guards for {@code spring.threads.virtual.enabled=true}. With virtual threads, Spring Boot runs
+ * Tomcat requests, Kafka listener containers and {@code @Scheduled} tasks (the outbox relay) on
+ * virtual threads, so the Tomcat thread pool no longer limits how many requests reach the Hikari
+ * pool at once. The API is therefore limited to the connections left after the listeners and the relay.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadConfig {
+
+    // The relay holds its lock on one connection while it reads and deletes on another
+    private static final int RELAY_CONNECTIONS = 2;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+
+    @Value("${spring.kafka.listener.concurrency:1}")
+    private int listenerConcurrency;
+
+    // 0 derives the limit from the pool size
+    @Value("${app.virtual-threads.max-concurrent-requests:0}")
+    private int maxConcurrentRequests;
+
+    @Value("${app.virtual-threads.acquire-timeout-ms:5000}")
+    private long acquireTimeoutMs;
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> apiConcurrencyLimitFilter() {
+        int limit = maxConcurrentRequests > 0 ? maxConcurrentRequests : requestLimit(poolSize, listenerConcurrency);
+        if (limit + listenerConcurrency + RELAY_CONNECTIONS > poolSize) {
+            log.warn("Up to {} requests, {} listener threads and the outbox relay share {} database connections; "
+                    + "some will wait on the pool", limit, listenerConcurrency, poolSize);
+        }
+        log.info("Virtual threads enabled, limiting /api to {} concurrent requests", limit);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(limit, acquireTimeoutMs));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    // One connection per listener thread and two for the outbox relay, the rest for requests
+    static int requestLimit(int poolSize, int listenerConcurrency) {
+        return Math.max(1, poolSize - listenerConcurrency - RELAY_CONNECTIONS);
+    }
+}
@@ -1,16 +1,48 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.BulkDeleteRequest;
+import com.example.demo.dto.BulkDeleteResult;
+import com.example.demo.dto.BulkLoadResult;
+import com.example.demo.dto.ImportError;
+import com.example.demo.dto.ImportJobView;
+import com.example.demo.dto.ImportSummary;
+import com.example.demo.dto.PaymentGroupDiff;
+import com.example.demo.dto.PaymentGroupPage;
+import com.example.demo.dto.PaymentGroupPatch;
 import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentGroupSearch;
+import com.example.demo.dto.PaymentGroupView;
+import com.example.demo.dto.PaymentTotal;
 import com.example.demo.model.PaymentGroup;
+import com.example.demo.service.DuplicateEndToEndIdException;
+import com.example.demo.service.ImportJobService;
+import com.example.demo.service.PaymentBulkLoadService;
 import com.example.demo.service.PaymentService;
+import com.example.demo.service.PaymentStreamImportService;
+import com.example.demo.service.PaymentValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.ErrorResponseException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -20,40 +52,201 @@ import java.util.List;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final PaymentStreamImportService paymentStreamImportService;
+    private final PaymentBulkLoadService paymentBulkLoadService;
+    private final ImportJobService importJobService;
+    private final PaymentValidator paymentValidator;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @Operation(summary = "Import payment groups from JSON")
     public ResponseEntity<List<PaymentGroup>> importPayments(@RequestBody List<PaymentGroupRecord> records) {
-        log.info("Importing {} payment groups", records.size());
+        log.debug("Importing {} payment groups", records.size());
+        List<ImportError> invalid = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            List<String> errors = paymentValidator.validate(records.get(i));
+            if (!errors.isEmpty()) {
+                invalid.add(new ImportError(i, records.get(i).externalId(), errors));
+            }
+        }
+        if (!invalid.isEmpty()) {
+            // All or nothing, like the import itself; POST /stream imports the valid groups instead
+            ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,
+                    invalid.size() + " of " + records.size() + " payment groups are invalid");
+            problem.setProperty("errors", invalid);
+            throw new ErrorResponseException(HttpStatus.BAD_REQUEST, problem, null);
+        }
         List<PaymentGroup> result = paymentService.importPayments(records);
         log.info("Successfully imported {} payment groups", result.size());
         return ResponseEntity.ok(result);
     }
 
+    @PostMapping(path = "/stream", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Import a large JSON array of payment groups in chunks, returning only a summary")
+    public ResponseEntity<ImportSummary> importPaymentsStream(InputStream body) throws IOException {
+        log.debug("Starting streaming import of payment groups");
+        ImportSummary summary = paymentStreamImportService.importStream(body);
+        log.info("Streaming import imported {} groups, {} failed", summary.groupsImported(), summary.groupsFailed());
+        return ResponseEntity.ok(summary);
+    }
+
+    @PostMapping(path = "/bulk-load", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Bulk load payment groups with PostgreSQL COPY (migrations/backfills, no Kafka events)")
+    public ResponseEntity<BulkLoadResult> bulkLoadPayments(InputStream body) throws IOException {
+        log.debug("Starting COPY bulk load of payment groups");
+        BulkLoadResult result = paymentBulkLoadService.load(body);
+        log.info("Bulk loaded {} groups and {} payments at {} rows/s",
+                result.groupsLoaded(), result.paymentsLoaded(), Math.round(result.rowsPerSecond()));
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping(path = "/jobs", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Submit a JSON array of payment groups as an import job, imported in the background in committed, resumable chunks")
+    public ResponseEntity<ImportJobView> submitImportJob(InputStream body) throws IOException {
+        ImportJobView job = importJobService.submit(body);
+        log.info("Accepted import job {}", job.id());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/payments/jobs/" + job.id()))
+                .body(job);
+    }
+
+    @GetMapping("/jobs/{id}")
+    @Operation(summary = "Get the progress of an import job, with throughput and estimated time remaining")
+    public ResponseEntity<ImportJobView> getImportJob(@PathVariable Long id) {
+        return ResponseEntity.of(importJobService.getJob(id));
+    }
+
     @GetMapping
     @Operation(summary = "Get all payment groups")
-    public ResponseEntity<List<PaymentGroup>> getAllPaymentGroups() {
-        log.info("Fetching all payment groups");
-        List<PaymentGroup> groups = paymentService.getAllGroups();
+    public ResponseEntity<List<PaymentGroupView>> getAllPaymentGroups() {
+        log.debug("Fetching all payment groups");
+        List<PaymentGroupView> groups = paymentService.getAllGroups();
         log.info("Retrieved {} payment groups", groups.size());
         return ResponseEntity.ok(groups);
     }
 
+    @GetMapping("/page")
+    @Operation(summary = "Get payment groups page by page, ordered by id (keyset pagination)")
+    public ResponseEntity<PaymentGroupPage> getPaymentGroupsPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.debug("Fetching payment groups page after: {}, limit: {}", after, limit);
+        PaymentGroupPage page = paymentService.getGroupsPage(after, limit);
+        log.info("Retrieved {} payment groups, next cursor: {}", page.items().size(), page.nextCursor());
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search payment groups by execution date range, country, source system, debtor IBAN, tcif or uname (keyset pagination)")
+    public ResponseEntity<PaymentGroupPage> searchPaymentGroups(
+            PaymentGroupSearch search,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.debug("Searching payment groups: {}, after: {}, limit: {}", search, after, limit);
+        PaymentGroupPage page = paymentService.searchGroups(search, after, limit);
+        log.info("Found {} payment groups, next cursor: {}", page.items().size(), page.nextCursor());
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/totals")
+    @Operation(summary = "Get payment count and amount per debtor IBAN, currency and execution date")
+    public ResponseEntity<List<PaymentTotal>> getPaymentTotals(
+            @RequestParam(required = false) String debtorIban,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.debug("Fetching payment totals for debtor: {}, currency: {}, from: {}, to: {}", debtorIban, currency, from, to);
+        return ResponseEntity.ok(paymentService.getTotals(debtorIban, currency, from, to));
+    }
+
+    @PostMapping("/totals/rebuild")
+    @Operation(summary = "Recompute the payment totals from the stored payments")
+    public ResponseEntity<Map<String, Integer>> rebuildPaymentTotals() {
+        int rows = paymentService.rebuildTotals();
+        return ResponseEntity.ok(Map.of("totals", rows));
+    }
+
+    @GetMapping(path = "/stream", produces = "application/x-ndjson")
+    @Operation(summary = "Stream all payment groups as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamPaymentGroups() {
+        log.info("Streaming all payment groups as NDJSON");
+        StreamingResponseBody body = out -> paymentService.streamAllGroups(group -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(group));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get payment group by ID")
-    public ResponseEntity<PaymentGroup> getPaymentGroup(@PathVariable Long id) {
-        log.info("Fetching payment group with id: {}", id);
-        PaymentGroup group = paymentService.getGroupById(id);
-        log.info("Retrieved payment group: {} with {} payments", id, group.getPayments().size());
+    public ResponseEntity<PaymentGroupView> getPaymentGroup(@PathVariable Long id) {
+        log.debug("Fetching payment group with id: {}", id);
+        PaymentGroupView group = paymentService.getGroupView(id);
+        log.info("Retrieved payment group: {} with {} payments", id, group.payments().size());
         return ResponseEntity.ok(group);
     }
 
+    @PatchMapping(path = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Partially update a payment group and selected payments, emitting payment.modified with only the changes")
+    public ResponseEntity<PaymentGroupDiff> modifyPaymentGroup(@PathVariable Long id, @RequestBody PaymentGroupPatch patch) {
+        List<String> errors = paymentValidator.validate(patch);
+        if (!errors.isEmpty()) {
+            throw new ErrorResponseException(HttpStatus.BAD_REQUEST,
+                    ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, String.join("; ", errors)), null);
+        }
+        PaymentGroupDiff diff = paymentService.modifyGroup(id, patch);
+        log.info("Modified payment group: {} ({} payments changed)", id, diff.payments().size());
+        return ResponseEntity.ok(diff);
+    }
+
+    @PostMapping("/bulk-delete")
+    @Operation(summary = "Delete many payment groups by ids, or by source system and execution date, emitting payment.deleted for each")
+    public ResponseEntity<BulkDeleteResult> bulkDeletePaymentGroups(@RequestBody BulkDeleteRequest request) {
+        BulkDeleteResult result;
+        if (request.byIds()) {
+            result = paymentService.deleteGroupsById(request.ids());
+        } else if (request.bySource()) {
+            result = paymentService.deleteGroupsBySource(request.sourceSystem(), request.requestedExecutionDate());
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+        log.info("Bulk deleted {} payment groups and {} payments", result.groupsDeleted(), result.paymentsDeleted());
+        return ResponseEntity.ok(result);
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete payment group by ID")
     public ResponseEntity<Void> deletePaymentGroup(@PathVariable Long id) {
-        log.info("Deleting payment group with id: {}", id);
+        log.debug("Deleting payment group with id: {}", id);
         paymentService.deleteGroup(id);
         log.info("Successfully deleted payment group: {}", id);
         return ResponseEntity.noContent().build();
     }
+
+    @ExceptionHandler(ErrorResponseException.class)
+    public ResponseEntity<ProblemDetail> handleErrorResponse(ErrorResponseException e) {
+        return ResponseEntity.status(e.getStatusCode()).body(e.getBody());
+    }
+
+    @ExceptionHandler(DuplicateEndToEndIdException.class)
+    public ResponseEntity<ProblemDetail> handleDuplicateEndToEndIds(DuplicateEndToEndIdException e) {
+        log.info("Rejected import: {}", e.getMessage());
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage());
+        problem.setProperty("duplicates", e.getDuplicates());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(problem);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ProblemDetail> handleConcurrentModification(OptimisticLockingFailureException e) {
+        log.info("Rejected stale update: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                        "The payment group was modified concurrently; reload it and retry"));
+    }
 }
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Either {@code ids}, or {@code sourceSystem} together with {@code requestedExecutionDate}.
+ */
+public record BulkDeleteRequest(
+    List<Long> ids,
+    String sourceSystem,
+    LocalDate requestedExecutionDate
+) {
+    public boolean byIds() {
+        return ids != null && sourceSystem == null && requestedExecutionDate == null;
+    }
+
+    public boolean bySource() {
+        return ids == null && sourceSystem != null && !sourceSystem.isBlank() && requestedExecutionDate != null;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.demo.dto;
+
+public record BulkDeleteResult(
+    long groupsDeleted,
+    long paymentsDeleted
+) {}
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public record BulkLoadResult(
+    long groupsLoaded,
+    long paymentsLoaded,
+    long groupsSkipped,
+    long paymentsSkipped,
+    // Both lists are capped, see PaymentBulkLoadService.MAX_REPORTED_DUPLICATES; the end-to-end ids are
+    // those of the rejected groups
+    List<String> skippedExternalIds,
+    List<String> duplicateEndToEndIds,
+    // Groups failing validation or with an end-to-end id stored already or repeated in the file, not loaded
+    // at all; the list is capped like the two above
+    long groupsRejected,
+    List<ImportError> rejected,
+    long elapsedMillis,
+    double rowsPerSecond
+) {}
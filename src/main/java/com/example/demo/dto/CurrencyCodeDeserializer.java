@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.CurrencyCode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads an ISO 4217 code as the interned {@link CurrencyCode#code()}, straight from the parser's
+ * buffer, so a large import holds one string per currency instead of one per payment. Anything else
+ * is read as a plain string and left to the validator.
+ */
+public class CurrencyCodeDeserializer extends JsonDeserializer<String> {
+
+    @Override
+    public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.hasToken(JsonToken.VALUE_STRING)) {
+            CurrencyCode currency = CurrencyCode.of(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            if (currency != null) {
+                return currency.code();
+            }
+        }
+        return StringDeserializer.instance.deserialize(parser, context);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public record ImportError(
+    // Position of the group in the imported array, starting at 0
+    long index,
+    String externalId,
+    List<String> errors
+) {}
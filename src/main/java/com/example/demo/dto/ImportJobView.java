@@ -0,0 +1,51 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.ImportJob;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+public record ImportJobView(
+    long id,
+    ImportJob.Status status,
+    // Null until the job has started and counted the groups of its file
+    Long totalGroups,
+    // Groups before the checkpoint: imported or failed
+    long groupsProcessed,
+    long groupsImported,
+    long paymentsImported,
+    long groupsFailed,
+    Double percentComplete,
+    // Since the current run started, so time spent waiting to be resumed does not count
+    double groupsPerSecond,
+    // Null while the rate or the total is unknown
+    Long estimatedSecondsRemaining,
+    Instant createdAt,
+    Instant startedAt,
+    Instant finishedAt,
+    String error,
+    // Capped, see ImportJobService.MAX_REPORTED_FAILURES
+    List<ImportError> errors
+) {
+    public static ImportJobView from(ImportJob job, Instant now) {
+        double rate = 0;
+        if (job.getRunStartedAt() != null && job.getRunStartIndex() != null) {
+            Instant end = job.getFinishedAt() != null ? job.getFinishedAt() : now;
+            long millis = Math.max(1, Duration.between(job.getRunStartedAt(), end).toMillis());
+            rate = (job.getNextIndex() - job.getRunStartIndex()) * 1000.0 / millis;
+        }
+        Long total = job.getTotalGroups();
+        Double percent = total == null ? null : total == 0 ? 100.0 : 100.0 * job.getNextIndex() / total;
+        Long remaining = null;
+        if (job.isFinished()) {
+            remaining = 0L;
+        } else if (total != null && rate > 0) {
+            remaining = (long) Math.ceil((total - job.getNextIndex()) / rate);
+        }
+        return new ImportJobView(job.getId(), job.getStatus(), total, job.getNextIndex(), job.getGroupsImported(),
+                job.getPaymentsImported(), job.getGroupsFailed(), percent, rate, remaining, job.getCreatedAt(),
+                job.getStartedAt(), job.getFinishedAt(), job.getError(),
+                job.getErrors() == null ? List.of() : job.getErrors());
+    }
+}
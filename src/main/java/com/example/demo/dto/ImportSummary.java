@@ -0,0 +1,13 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public record ImportSummary(
+    long groupsImported,
+    long paymentsImported,
+    long groupsFailed,
+    // Capped, see PaymentStreamImportService.MAX_REPORTED_FAILURES
+    List<String> failedExternalIds,
+    // Why each failed group was rejected, capped like failedExternalIds
+    List<ImportError> errors
+) {}
@@ -0,0 +1,47 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Event payload for payment.modified and response of {@code PATCH /api/payments/{id}}: only the
+ * fields that changed are set, together with the versions the changed rows now have.
+ * {@code version} is the group's current version whether or not its own fields changed.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PaymentGroupDiff(
+    Long id,
+    String externalId,
+    Long version,
+    String debtorIban,
+    String debtorName,
+    LocalDate requestedExecutionDate,
+    List<PaymentDiff> payments
+) {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record PaymentDiff(
+        String endToEndIdentification,
+        Long version,
+        String currency,
+        BigDecimal amount,
+        String creditorName,
+        String creditorIban,
+        String remittanceInformation
+    ) {
+        public PaymentDiff withVersion(Long version) {
+            return new PaymentDiff(endToEndIdentification, version, currency, amount, creditorName, creditorIban,
+                    remittanceInformation);
+        }
+    }
+
+    public boolean groupChanged() {
+        return debtorIban != null || debtorName != null || requestedExecutionDate != null;
+    }
+
+    public boolean hasChanges() {
+        return groupChanged() || (payments != null && !payments.isEmpty());
+    }
+}
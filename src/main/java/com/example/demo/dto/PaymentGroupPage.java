@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public record PaymentGroupPage(
+    List<PaymentGroupView> items,
+    // Pass as ?after= to get the next page; null on the last page
+    Long nextCursor
+) {}
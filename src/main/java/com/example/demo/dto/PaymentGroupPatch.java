@@ -0,0 +1,26 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Body of {@code PATCH /api/payments/{id}}: null fields are left unchanged, and only the payments
+ * listed (by endToEndIdentification) are touched. {@code version} fields are the versions the client
+ * last read; when given, the update is rejected if the row has changed since.
+ */
+public record PaymentGroupPatch(
+    Long version,
+    PaymentGroupRecord.DebtorAccount debtorAccount,
+    String debtorName,
+    LocalDate requestedExecutionDate,
+    List<PaymentPatch> payments
+) {
+    public record PaymentPatch(
+        String endToEndIdentification,
+        Long version,
+        PaymentRecord.InstructedAmount instructedAmount,
+        String creditorName,
+        PaymentRecord.CreditorAccount creditorAccount,
+        String remittanceInformationUnstructured
+    ) {}
+}
@@ -1,5 +1,7 @@
 package com.example.demo.dto;
 
+import com.example.demo.model.PaymentGroup;
+
 import java.time.LocalDate;
 import java.util.List;
 
@@ -16,4 +18,20 @@ public record PaymentGroupRecord(
     String sourceSystem
 ) {
     public record DebtorAccount(String iban) {}
+
+    /**
+     * Event payload for payment.created: the same shape the consumer ingests, without ids or JPA state.
+     */
+    public static PaymentGroupRecord from(PaymentGroup group) {
+        return new PaymentGroupRecord(
+                new DebtorAccount(group.getDebtorIban()),
+                group.getDebtorName(),
+                group.getRequestedExecutionDate(),
+                group.getPayments() == null ? List.of() : group.getPayments().stream().map(PaymentRecord::from).toList(),
+                group.getExternalId(),
+                group.getUname(),
+                group.getTcif(),
+                group.getCountry(),
+                group.getSourceSystem());
+    }
 }
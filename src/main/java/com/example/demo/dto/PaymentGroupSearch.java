@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Filters of {@code GET /api/payments/search}; null filters match everything. The execution date
+ * range is inclusive, so {@code from == to} selects the groups due on one day.
+ */
+public record PaymentGroupSearch(
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+    String country,
+    String sourceSystem,
+    String debtorIban,
+    String tcif,
+    String uname
+) {}
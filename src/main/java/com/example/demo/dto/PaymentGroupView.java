@@ -0,0 +1,43 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.PaymentGroup;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read-side shape of a payment group. Built inside the read transaction so serialization never
+ * touches a lazy association. The versions are what {@code PATCH /api/payments/{id}} checks.
+ */
+public record PaymentGroupView(
+    Long id,
+    Long version,
+    String debtorIban,
+    String debtorName,
+    LocalDate requestedExecutionDate,
+    Instant createdAt,
+    String externalId,
+    String uname,
+    String tcif,
+    String country,
+    String sourceSystem,
+    List<PaymentView> payments
+) {
+    public static PaymentGroupView from(PaymentGroup group) {
+        return new PaymentGroupView(
+                group.getId(),
+                group.getVersion(),
+                group.getDebtorIban(),
+                group.getDebtorName(),
+                group.getRequestedExecutionDate(),
+                group.getCreatedAt(),
+                group.getExternalId(),
+                group.getUname(),
+                group.getTcif(),
+                group.getCountry(),
+                group.getSourceSystem(),
+                group.getPayments().stream().map(PaymentView::from).toList()
+        );
+    }
+}
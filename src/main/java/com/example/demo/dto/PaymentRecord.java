@@ -1,5 +1,8 @@
 package com.example.demo.dto;
 
+import com.example.demo.model.Payment;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
 import java.math.BigDecimal;
 
 public record PaymentRecord(
@@ -9,6 +12,16 @@ public record PaymentRecord(
     CreditorAccount creditorAccount,
     String remittanceInformationUnstructured
 ) {
-    public record InstructedAmount(String currency, BigDecimal amount) {}
+    public record InstructedAmount(@JsonDeserialize(using = CurrencyCodeDeserializer.class) String currency,
+                                   BigDecimal amount) {}
     public record CreditorAccount(String iban) {}
+
+    public static PaymentRecord from(Payment payment) {
+        return new PaymentRecord(
+                payment.getEndToEndIdentification(),
+                new InstructedAmount(payment.getCurrency(), payment.getAmount()),
+                payment.getCreditorName(),
+                new CreditorAccount(payment.getCreditorIban()),
+                payment.getRemittanceInformation());
+    }
 }
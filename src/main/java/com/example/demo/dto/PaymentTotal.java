@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Number and sum of the payments of one debtor in one currency due on one date. Also used as a
+ * signed delta when the totals are maintained.
+ */
+public record PaymentTotal(
+    String debtorIban,
+    String currency,
+    LocalDate requestedExecutionDate,
+    long paymentCount,
+    BigDecimal totalAmount
+) {}
@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Payment;
+
+import java.math.BigDecimal;
+
+public record PaymentView(
+    Long id,
+    Long version,
+    String endToEndIdentification,
+    String currency,
+    BigDecimal amount,
+    String creditorName,
+    String creditorIban,
+    String remittanceInformation
+) {
+    public static PaymentView from(Payment payment) {
+        return new PaymentView(
+                payment.getId(),
+                payment.getVersion(),
+                payment.getEndToEndIdentification(),
+                payment.getCurrency(),
+                payment.getAmount(),
+                payment.getCreditorName(),
+                payment.getCreditorIban(),
+                payment.getRemittanceInformation()
+        );
+    }
+}
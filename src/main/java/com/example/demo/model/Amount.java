@@ -0,0 +1,81 @@
+package com.example.demo.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point amount in minor units of its currency: 1050 EUR cents for 10.50 EUR. Used in two places only:
+ * {@code PaymentValidator} checks amounts with {@link #fits} and {@link #hasStorableScale}, and
+ * {@code PaymentTotalsDelta} sums totals deltas with it, converting with {@link #of} and {@link #toBigDecimal()}.
+ * <p>
+ * Everything else keeps {@link BigDecimal}: the JSON records, the mapping into the entity, the per-currency
+ * metrics and the binary event codec. They pass the parsed value through unchanged, so converting would add
+ * work rather than save it, and a diff event may carry an amount without its currency.
+ */
+public record Amount(CurrencyCode currency, long minorUnits) {
+
+    // A long holds any 18-digit number of minor units
+    private static final int LONG_DIGITS = 18;
+
+    // Integer digits of the amount columns
+    private static final int STORED_INTEGER_DIGITS = Payment.AMOUNT_PRECISION - Payment.AMOUNT_SCALE;
+
+    /**
+     * @throws ArithmeticException if {@code value} has more decimals than the currency allows or
+     *                             does not fit into a long of minor units
+     */
+    public static Amount of(CurrencyCode currency, BigDecimal value) {
+        // Trailing zeros beyond the minor unit are fine: 10.500 EUR is 1050 cents
+        return new Amount(currency, value.movePointRight(currency.fractionDigits()).longValueExact());
+    }
+
+    /**
+     * Whether {@link #of} accepts {@code value} and the amount columns can store it: at most 17 integer
+     * digits, fewer where the minor units would not fit into a long. Allocation-free unless it has surplus
+     * trailing zeros.
+     */
+    public static boolean fits(CurrencyCode currency, BigDecimal value) {
+        int integerDigits = value.precision() - value.scale();
+        return hasStorableScale(currency, value)
+                && integerDigits <= Math.min(STORED_INTEGER_DIGITS, LONG_DIGITS - currency.fractionDigits());
+    }
+
+    /**
+     * Most significant decimals of an amount in {@code currency}: its minor unit, but no more than the
+     * amount columns store, so 1.005 BHD is not rounded on insert.
+     */
+    public static int maxDecimals(CurrencyCode currency) {
+        return Math.min(currency.fractionDigits(), Payment.AMOUNT_SCALE);
+    }
+
+    /**
+     * Whether {@code value} has no more significant decimals than {@link #maxDecimals}.
+     */
+    public static boolean hasStorableScale(CurrencyCode currency, BigDecimal value) {
+        int digits = maxDecimals(currency);
+        return value.scale() <= digits || value.stripTrailingZeros().scale() <= digits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.fractionDigits());
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public Amount negate() {
+        return new Amount(currency, Math.negateExact(minorUnits));
+    }
+
+    public Amount plus(Amount other) {
+        if (other.currency != currency) {
+            throw new IllegalArgumentException("Cannot add " + other.currency + " to " + currency);
+        }
+        return new Amount(currency, Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+}
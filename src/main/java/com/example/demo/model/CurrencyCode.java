@@ -0,0 +1,122 @@
+package com.example.demo.model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Currency;
+
+/**
+ * Interned ISO 4217 currency: one instance per code, looked up from its three letters without
+ * allocating or hashing, so it can be resolved once per payment on the import path. {@link #ordinal()}
+ * is dense, for per-currency arrays.
+ */
+public final class CurrencyCode {
+
+    private static final int LETTERS = 26;
+
+    private static final CurrencyCode[] VALUES;
+
+    // Indexed by the three letters as a base-26 number
+    private static final CurrencyCode[] BY_LETTERS = new CurrencyCode[LETTERS * LETTERS * LETTERS];
+
+    static {
+        Currency[] currencies = Currency.getAvailableCurrencies().stream()
+                .filter(currency -> index(currency.getCurrencyCode()) >= 0)
+                .sorted(Comparator.comparing(Currency::getCurrencyCode))
+                .toArray(Currency[]::new);
+        VALUES = new CurrencyCode[currencies.length];
+        for (int i = 0; i < currencies.length; i++) {
+            CurrencyCode code = new CurrencyCode(currencies[i], i);
+            VALUES[i] = code;
+            BY_LETTERS[index(code.code)] = code;
+        }
+    }
+
+    private final String code;
+    private final int fractionDigits;
+    private final int ordinal;
+
+    private CurrencyCode(Currency currency, int ordinal) {
+        this.code = currency.getCurrencyCode().intern();
+        // Metals and funds report -1; they have no minor unit
+        this.fractionDigits = Math.max(0, currency.getDefaultFractionDigits());
+        this.ordinal = ordinal;
+    }
+
+    /**
+     * @return the currency, or {@code null} if {@code code} is not an ISO 4217 code
+     */
+    public static CurrencyCode of(CharSequence code) {
+        if (code == null || code.length() != 3) {
+            return null;
+        }
+        int index = index(code.charAt(0), code.charAt(1), code.charAt(2));
+        return index < 0 ? null : BY_LETTERS[index];
+    }
+
+    /**
+     * Like {@link #of(CharSequence)} for a slice of a buffer, e.g. a JSON parser's text.
+     */
+    public static CurrencyCode of(char[] chars, int offset, int length) {
+        if (length != 3) {
+            return null;
+        }
+        int index = index(chars[offset], chars[offset + 1], chars[offset + 2]);
+        return index < 0 ? null : BY_LETTERS[index];
+    }
+
+    /**
+     * Like {@link #of(CharSequence)} for ASCII bytes, e.g. a binary event.
+     */
+    public static CurrencyCode of(byte[] bytes, int offset, int length) {
+        if (length != 3) {
+            return null;
+        }
+        int index = index((char) bytes[offset], (char) bytes[offset + 1], (char) bytes[offset + 2]);
+        return index < 0 ? null : BY_LETTERS[index];
+    }
+
+    public static CurrencyCode[] values() {
+        return Arrays.copyOf(VALUES, VALUES.length);
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+
+    /**
+     * The code as an interned string, the same instance for every lookup.
+     */
+    public String code() {
+        return code;
+    }
+
+    /**
+     * Decimals of the minor unit: 2 for EUR, 0 for JPY, 3 for BHD.
+     */
+    public int fractionDigits() {
+        return fractionDigits;
+    }
+
+    public int ordinal() {
+        return ordinal;
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+
+    private static int index(String code) {
+        return code.length() == 3 ? index(code.charAt(0), code.charAt(1), code.charAt(2)) : -1;
+    }
+
+    private static int index(char first, char second, char third) {
+        int a = first - 'A';
+        int b = second - 'A';
+        int c = third - 'A';
+        if ((a | b | c) < 0 || a >= LETTERS || b >= LETTERS || c >= LETTERS) {
+            return -1;
+        }
+        return (a * LETTERS + b) * LETTERS + c;
+    }
+}
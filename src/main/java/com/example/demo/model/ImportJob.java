@@ -0,0 +1,97 @@
+package com.example.demo.model;
+
+import com.example.demo.dto.ImportError;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An asynchronous import of a spooled file (see {@code ImportJobService}). {@link #nextIndex} is the
+ * checkpoint: every chunk of groups is imported in the same transaction that advances it, so a resumed
+ * job continues exactly where the last commit left off.
+ */
+@Entity
+@Table(name = "import_jobs")
+@DynamicUpdate
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // A checkpoint of an instance that lost the job to another one fails instead of overwriting its progress
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "file_path", nullable = false, length = 1024)
+    private String filePath;
+
+    @Column(name = "total_groups")
+    private Long totalGroups;
+
+    @Column(name = "next_index", nullable = false)
+    private long nextIndex;
+
+    @Column(name = "groups_imported", nullable = false)
+    private long groupsImported;
+
+    @Column(name = "payments_imported", nullable = false)
+    private long paymentsImported;
+
+    @Column(name = "groups_failed", nullable = false)
+    private long groupsFailed;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "errors")
+    @Builder.Default
+    private List<ImportError> errors = new ArrayList<>();
+
+    @Column(name = "error")
+    private String error;
+
+    @Column(name = "owner", length = 64)
+    private String owner;
+
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+
+    @Column(name = "run_started_at")
+    private Instant runStartedAt;
+
+    @Column(name = "run_start_index")
+    private Long runStartIndex;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    @org.hibernate.annotations.CreationTimestamp
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+}
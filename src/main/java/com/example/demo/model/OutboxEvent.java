@@ -0,0 +1,44 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A Kafka record waiting to be published by {@code OutboxRelay}. Rows are inserted in the same
+ * transaction as the change they describe and deleted once the broker has acknowledged them.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    public static final String ID_SEQUENCE = "outbox_events_seq";
+
+    // Ids of concurrent writers interleave across instances' blocks; relay order is the writing transaction, then id
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "topic", nullable = false)
+    private String topic;
+
+    @Column(name = "event_key")
+    private String eventKey;
+
+    // Serialized record value, JSON or PaymentEventCodec depending on the topic's format
+    @Column(name = "payload", nullable = false)
+    private byte[] payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    @org.hibernate.annotations.CreationTimestamp
+    private Instant createdAt;
+}
@@ -3,11 +3,13 @@ package com.example.demo.model;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 
 @Entity
 @Table(name = "payments")
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,10 +17,24 @@ import java.math.BigDecimal;
 @Builder
 public class Payment {
 
+    public static final String ID_SEQUENCE = "payments_seq";
+
+    // Must match the sequence INCREMENT BY so Hibernate can hand out ids without a round trip per insert
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // payments.amount and payment_totals.total_amount are DECIMAL(19, 2)
+    public static final int AMOUNT_PRECISION = 19;
+    public static final int AMOUNT_SCALE = 2;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "payment_group_id", nullable = false)
     @JsonBackReference
@@ -30,7 +46,7 @@ public class Payment {
     @Column(nullable = false)
     private String currency;
 
-    @Column(nullable = false, precision = 19, scale = 2)
+    @Column(nullable = false, precision = AMOUNT_PRECISION, scale = AMOUNT_SCALE)
     private BigDecimal amount;
 
     @Column(name = "creditor_name", nullable = false)
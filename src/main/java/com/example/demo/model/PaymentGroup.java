@@ -3,6 +3,9 @@ package com.example.demo.model;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -10,6 +13,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "payment_groups")
+// Updates only write the columns that changed, so a PATCH of one field sends one small UPDATE
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,10 +22,21 @@ import java.util.List;
 @Builder
 public class PaymentGroup {
 
+    public static final String ID_SEQUENCE = "payment_groups_seq";
+
+    // Must match the sequence INCREMENT BY so Hibernate can hand out ids without a round trip per insert
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
+    // Covers the group's own columns only; payments carry their own version
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "debtor_iban", nullable = false)
     private String debtorIban;
 
@@ -51,7 +67,10 @@ public class PaymentGroup {
     @Column(name = "source_system", nullable = false, length = 64)
     private String sourceSystem;
 
+    // Lazy paths that bypass the repository's entity graphs load payments for up to 100 groups per query
     @OneToMany(mappedBy = "paymentGroup", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
+    @OptimisticLock(excluded = true)
     @Builder.Default
     @JsonManagedReference
     private List<Payment> payments = new ArrayList<>();
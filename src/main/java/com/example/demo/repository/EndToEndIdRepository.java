@@ -0,0 +1,66 @@
+package com.example.demo.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads {@code payments.end_to_end_identification} for the duplicate pre-check: which of many ids
+ * exist, in one statement with the ids as one array parameter, and all ids page by page to fill
+ * the in-memory index.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EndToEndIdRepository {
+
+    private static final String FIND_EXISTING = """
+            SELECT end_to_end_identification FROM payments
+            WHERE end_to_end_identification = ANY(?::varchar[])""";
+
+    private static final String PAGE = """
+            SELECT id, end_to_end_identification FROM payments
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return the ids of {@code endToEndIds} that are stored
+     */
+    public List<String> findExisting(Collection<String> endToEndIds) {
+        if (endToEndIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_EXISTING);
+            statement.setArray(1, connection.createArrayOf("varchar", endToEndIds.toArray()));
+            return statement;
+        }, (rs, row) -> rs.getString(1));
+    }
+
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM payments", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Passes the end-to-end ids of up to {@code limit} payments with an id above {@code after} to
+     * {@code action}, in id order; a keyset page, so no transaction is held across pages.
+     *
+     * @return the last payment id of the page, or {@code after} if there are no more payments
+     */
+    public long forEachAfter(long after, int limit, Consumer<String> action) {
+        long[] last = {after};
+        jdbcTemplate.query(PAGE, rs -> {
+            last[0] = rs.getLong(1);
+            action.accept(rs.getString(2));
+        }, after, limit);
+        return last[0];
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+    // Queued jobs nobody picked up, and running jobs whose owner stopped sending heartbeats
+    @Query("""
+            select j.id from ImportJob j
+            where j.status = com.example.demo.model.ImportJob.Status.QUEUED
+               or (j.status = com.example.demo.model.ImportJob.Status.RUNNING and j.heartbeatAt < :staleBefore)
+            order by j.id""")
+    List<Long> findResumableIds(@Param("staleBefore") Instant staleBefore);
+
+    // Bulk update without a version bump, so it never conflicts with the owner's own checkpoints
+    @Modifying
+    @Query("""
+            update ImportJob j set j.heartbeatAt = :now
+            where j.id in :ids and j.owner = :owner
+              and j.status = com.example.demo.model.ImportJob.Status.RUNNING""")
+    int heartbeat(@Param("ids") Collection<Long> ids, @Param("owner") String owner, @Param("now") Instant now);
+
+    // On shutdown; bumps the version so a checkpoint still in flight fails instead of overwriting the release
+    @Modifying
+    @Query("""
+            update versioned ImportJob j set j.status = com.example.demo.model.ImportJob.Status.QUEUED
+            where j.owner = :owner and j.status = com.example.demo.model.ImportJob.Status.RUNNING""")
+    int release(@Param("owner") String owner);
+}
@@ -0,0 +1,22 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Events in the order of the transactions that wrote them, then id. Only transactions older than
+     * every transaction still open are included, so no writer can later commit an event that sorts
+     * before one already returned.
+     */
+    @Query(value = "SELECT * FROM outbox_events WHERE txid < pg_snapshot_xmin(pg_current_snapshot()) ORDER BY txid, id",
+            nativeQuery = true)
+    List<OutboxEvent> findOldest(Limit limit);
+}
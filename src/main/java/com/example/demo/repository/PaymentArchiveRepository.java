@@ -0,0 +1,155 @@
+package com.example.demo.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves payment groups and their payments from the hot tables into {@code payment_groups_archive} and
+ * {@code payments_archive}, which are range-partitioned by month of {@code requested_execution_date}
+ * (changeset 08). Each move is a {@code DELETE ... RETURNING} feeding an {@code INSERT} in one
+ * statement, so rows are never in both places. Ids are passed as one array parameter, as in
+ * {@link PaymentDeleteRepository}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentArchiveRepository {
+
+    public static final String GROUPS_ARCHIVE = "payment_groups_archive";
+    public static final String PAYMENTS_ARCHIVE = "payments_archive";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'_'yyyy'_'MM");
+
+    // Oldest first; groups locked by a concurrent PATCH or delete are left for the next run
+    private static final String LOCK_ARCHIVABLE = """
+            SELECT id, requested_execution_date FROM payment_groups
+            WHERE requested_execution_date < ?
+            ORDER BY requested_execution_date, id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED""";
+
+    private static final String ARCHIVE_PAYMENTS = """
+            WITH moved AS (
+                DELETE FROM payments WHERE payment_group_id = ANY(?::bigint[])
+                RETURNING id, version, payment_group_id, end_to_end_identification, currency, amount,
+                          creditor_name, creditor_iban, remittance_information
+            )
+            INSERT INTO payments_archive (id, version, payment_group_id, requested_execution_date,
+                                          end_to_end_identification, currency, amount,
+                                          creditor_name, creditor_iban, remittance_information)
+            SELECT m.id, m.version, m.payment_group_id, g.requested_execution_date,
+                   m.end_to_end_identification, m.currency, m.amount,
+                   m.creditor_name, m.creditor_iban, m.remittance_information
+            FROM moved m JOIN payment_groups g ON g.id = m.payment_group_id""";
+
+    private static final String ARCHIVE_GROUPS = """
+            WITH moved AS (
+                DELETE FROM payment_groups WHERE id = ANY(?::bigint[])
+                RETURNING id, version, debtor_iban, debtor_name, requested_execution_date, created_at,
+                          external_id, uname, tcif, country, source_system
+            )
+            INSERT INTO payment_groups_archive (id, version, debtor_iban, debtor_name, requested_execution_date,
+                                                created_at, external_id, uname, tcif, country, source_system)
+            SELECT id, version, debtor_iban, debtor_name, requested_execution_date,
+                   created_at, external_id, uname, tcif, country, source_system
+            FROM moved
+            RETURNING external_id""";
+
+    private static final String LIST_PARTITIONS = """
+            SELECT c.relname FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_class p ON p.oid = i.inhparent
+            WHERE p.relname = ?
+            ORDER BY c.relname""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Locks up to {@code limit} groups due before {@code before} for the rest of the transaction.
+     *
+     * @return requested_execution_date by id, oldest first
+     */
+    public Map<Long, LocalDate> lockArchivable(LocalDate before, int limit) {
+        Map<Long, LocalDate> groups = new LinkedHashMap<>();
+        RowCallbackHandler collect = rs -> groups.put(rs.getLong(1), rs.getObject(2, LocalDate.class));
+        jdbcTemplate.query(LOCK_ARCHIVABLE, collect, before, limit);
+        return groups;
+    }
+
+    /**
+     * Creates the partitions of both archive tables for {@code month} unless they exist.
+     */
+    public void createPartitions(YearMonth month) {
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+        for (String table : List.of(GROUPS_ARCHIVE, PAYMENTS_ARCHIVE)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition(table, month) + " PARTITION OF " + table
+                    + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        }
+    }
+
+    /**
+     * @return months that have a partition in {@code payment_groups_archive}, oldest first
+     */
+    public List<YearMonth> partitions() {
+        String prefix = GROUPS_ARCHIVE + "_";
+        return jdbcTemplate.queryForList(LIST_PARTITIONS, String.class, GROUPS_ARCHIVE).stream()
+                .filter(name -> name.startsWith(prefix))
+                .map(name -> YearMonth.parse(name.substring(prefix.length()).replace('_', '-')))
+                .toList();
+    }
+
+    /**
+     * Detaches the partitions of {@code month} from both archive tables. They remain as standalone
+     * tables, to be exported or dropped outside the application.
+     */
+    public void detachPartitions(YearMonth month) {
+        for (String table : List.of(PAYMENTS_ARCHIVE, GROUPS_ARCHIVE)) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition(table, month));
+        }
+    }
+
+    /**
+     * Must run before {@link #archiveGroups}, which removes the groups the payments are joined to.
+     */
+    public int archivePayments(long[] groupIds) {
+        return moveByIds(ARCHIVE_PAYMENTS, groupIds);
+    }
+
+    /**
+     * @return external ids of the archived groups
+     */
+    public List<String> archiveGroups(long[] ids) {
+        return jdbcTemplate.query(connection -> idsStatement(connection, ARCHIVE_GROUPS, ids),
+                (rs, row) -> rs.getString(1));
+    }
+
+    public static String partition(String table, YearMonth month) {
+        return table + month.atDay(1).format(PARTITION_SUFFIX);
+    }
+
+    private int moveByIds(String sql, long[] ids) {
+        return jdbcTemplate.update(connection -> idsStatement(connection, sql, ids));
+    }
+
+    private static PreparedStatement idsStatement(Connection connection, String sql, long[] ids) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        Long[] boxed = new Long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            boxed[i] = ids[i];
+        }
+        statement.setArray(1, connection.createArrayOf("bigint", boxed));
+        return statement;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Set-based deletes for any number of groups. Ids are passed as one array parameter, so each
+ * statement stays a single round trip instead of hitting the bind parameter limit of an expanded
+ * {@code IN} list. Callers lock the groups first, then delete their payments, then the groups
+ * (there is no ON DELETE CASCADE).
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentDeleteRepository {
+
+    private static final String LOCK_BY_IDS = """
+            SELECT id, external_id FROM payment_groups
+            WHERE id = ANY(?::bigint[])
+            ORDER BY id
+            FOR UPDATE""";
+
+    private static final String LOCK_BY_SOURCE = """
+            SELECT id, external_id FROM payment_groups
+            WHERE source_system = ? AND requested_execution_date = ?
+            ORDER BY id
+            FOR UPDATE""";
+
+    private static final String DELETE_PAYMENTS = "DELETE FROM payments WHERE payment_group_id = ANY(?::bigint[])";
+
+    private static final String DELETE_GROUPS = "DELETE FROM payment_groups WHERE id = ANY(?::bigint[])";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return external_id by id of the groups that exist, in id order; unknown ids are left out
+     */
+    public Map<Long, String> lockGroups(long[] ids) {
+        Map<Long, String> groups = new LinkedHashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOCK_BY_IDS);
+            statement.setArray(1, connection.createArrayOf("bigint", box(ids)));
+            return statement;
+        }, collectInto(groups));
+        return groups;
+    }
+
+    /**
+     * @return external_id by id of the groups of one source system and execution date, in id order
+     */
+    public Map<Long, String> lockGroups(String sourceSystem, LocalDate requestedExecutionDate) {
+        Map<Long, String> groups = new LinkedHashMap<>();
+        jdbcTemplate.query(LOCK_BY_SOURCE, collectInto(groups), sourceSystem, requestedExecutionDate);
+        return groups;
+    }
+
+    public int deletePayments(long[] groupIds) {
+        return deleteByIds(DELETE_PAYMENTS, groupIds);
+    }
+
+    public int deleteGroups(long[] ids) {
+        return deleteByIds(DELETE_GROUPS, ids);
+    }
+
+    private int deleteByIds(String sql, long[] ids) {
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("bigint", box(ids)));
+            return statement;
+        });
+    }
+
+    private static RowCallbackHandler collectInto(Map<Long, String> groups) {
+        return rs -> groups.put(rs.getLong(1), rs.getString(2));
+    }
+
+    private static Long[] box(long[] ids) {
+        Long[] boxed = new Long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            boxed[i] = ids[i];
+        }
+        return boxed;
+    }
+}
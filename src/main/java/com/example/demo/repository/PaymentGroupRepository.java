@@ -1,9 +1,59 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.PaymentGroup;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
 @Repository
 public interface PaymentGroupRepository extends JpaRepository<PaymentGroup, Long> {
+
+    // Read paths below fetch payments in the same query to avoid one payments query per group
+
+    @EntityGraph(attributePaths = "payments")
+    @Query("select g from PaymentGroup g order by g.id")
+    List<PaymentGroup> findAllWithPayments();
+
+    @EntityGraph(attributePaths = "payments")
+    Optional<PaymentGroup> findWithPaymentsById(Long id);
+
+    // Keyset page: an index range scan on the primary key, independent of how deep the client pages.
+    // Only ids are limited here; a collection fetch join would make Hibernate apply the limit in memory.
+    @Query("select g.id from PaymentGroup g where g.id > :after order by g.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Limit limit);
+
+    @EntityGraph(attributePaths = "payments")
+    List<PaymentGroup> findWithPaymentsByIdInOrderByIdAsc(Collection<Long> ids);
+
+    // Must be consumed inside a transaction; the fetch size makes pgjdbc use a cursor instead of buffering all rows
+    @EntityGraph(attributePaths = "payments")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select g from PaymentGroup g order by g.id")
+    Stream<PaymentGroup> streamAllOrderedById();
+
+    Optional<PaymentGroup> findByExternalId(String externalId);
+
+    @Query("select g.externalId from PaymentGroup g where g.id = :id")
+    Optional<String> findExternalIdById(@Param("id") Long id);
+
+    @Query("select g.externalId from PaymentGroup g where g.id in :ids")
+    List<String> findExternalIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Set-based delete without loading the groups; payments must be deleted first (no ON DELETE CASCADE)
+    @Modifying
+    @Query("delete from PaymentGroup g where g.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,51 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.PaymentGroupSearch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset search over payment groups. The WHERE clause only contains the filters that are set, rather
+ * than {@code (? IS NULL OR column = ?)} for each, so the planner sees plain equality and range
+ * predicates it can match to the search indexes (changeset 07), also for cached generic plans.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentGroupSearchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return ids greater than {@code after} of the groups matching {@code search}, ascending, at most {@code limit}
+     */
+    public List<Long> findIds(PaymentGroupSearch search, long after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT id FROM payment_groups WHERE id > ?");
+        List<Object> args = new ArrayList<>();
+        args.add(after);
+        if (search.from() != null && search.from().equals(search.to())) {
+            where(sql, args, "requested_execution_date = ?", search.from());
+        } else {
+            where(sql, args, "requested_execution_date >= ?", search.from());
+            where(sql, args, "requested_execution_date <= ?", search.to());
+        }
+        where(sql, args, "country = ?", search.country());
+        where(sql, args, "source_system = ?", search.sourceSystem());
+        where(sql, args, "debtor_iban = ?", search.debtorIban());
+        where(sql, args, "tcif = ?", search.tcif());
+        where(sql, args, "uname = ?", search.uname());
+        sql.append(" ORDER BY id LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray());
+    }
+
+    private static void where(StringBuilder sql, List<Object> args, String condition, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(condition);
+            args.add(value);
+        }
+    }
+}
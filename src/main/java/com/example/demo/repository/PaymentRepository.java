@@ -2,11 +2,24 @@ package com.example.demo.repository;
 
 import com.example.demo.model.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByEndToEndIdentification(String endToEndIdentification);
+
+    // Loads only the payments a PATCH names instead of the whole group
+    List<Payment> findByPaymentGroupIdAndEndToEndIdentificationIn(Long paymentGroupId,
+                                                                  Collection<String> endToEndIdentifications);
+
+    @Modifying
+    @Query("delete from Payment p where p.paymentGroup.id in :groupIds")
+    int deleteByPaymentGroupIdIn(@Param("groupIds") Collection<Long> groupIds);
 }
@@ -0,0 +1,145 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.PaymentTotal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Maintains {@code payment_totals} (changeset 09), the payment count and amount per debtor IBAN,
+ * currency and execution date. Every write path adds or subtracts its delta in the same transaction,
+ * aggregated per key, so a 5,000-payment group costs one upsert per key rather than one per payment.
+ * Upserts go in key order so concurrent writers of the same keys queue instead of deadlocking.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentTotalsRepository {
+
+    private static final String UPSERT = """
+            INSERT INTO payment_totals AS t (debtor_iban, currency, requested_execution_date, payment_count, total_amount)
+            %s
+            ON CONFLICT (debtor_iban, currency, requested_execution_date) DO UPDATE
+            SET payment_count = t.payment_count + EXCLUDED.payment_count,
+                total_amount = t.total_amount + EXCLUDED.total_amount""";
+
+    private static final String ADD_GROUPS = totalsOfGroups(1, "g.id = ANY(?::bigint[])");
+
+    private static final String SUBTRACT_GROUPS = totalsOfGroups(-1, "g.id = ANY(?::bigint[])");
+
+    private static final String ADD = UPSERT.formatted("VALUES (?, ?, ?, ?, ?)");
+
+    private static final String REBUILD = """
+            INSERT INTO payment_totals (debtor_iban, currency, requested_execution_date, payment_count, total_amount)
+            SELECT g.debtor_iban, p.currency, g.requested_execution_date, count(*), sum(p.amount)
+            FROM payments p JOIN payment_groups g ON g.id = p.payment_group_id
+            GROUP BY g.debtor_iban, p.currency, g.requested_execution_date""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Upsert of {@code sign} times the totals of the stored payments of the groups matching
+     * {@code groupCondition}, a predicate on {@code payment_groups g}. For callers that write with
+     * their own statements, like the COPY bulk loader.
+     */
+    public static String totalsOfGroups(int sign, String groupCondition) {
+        return UPSERT.formatted("""
+                SELECT g.debtor_iban, p.currency, g.requested_execution_date, %1$d * count(*), %1$d * sum(p.amount)
+                FROM payments p JOIN payment_groups g ON g.id = p.payment_group_id
+                WHERE %2$s
+                GROUP BY g.debtor_iban, p.currency, g.requested_execution_date
+                ORDER BY 1, 2, 3""".formatted(sign, groupCondition));
+    }
+
+    /**
+     * Adds the payments of {@code groupIds} as they are stored now; call after inserting them.
+     */
+    public void addGroups(long[] groupIds) {
+        updateByIds(ADD_GROUPS, groupIds);
+    }
+
+    /**
+     * Subtracts the payments of {@code groupIds} as they are stored now; call before deleting or moving them.
+     */
+    public void subtractGroups(long[] groupIds) {
+        updateByIds(SUBTRACT_GROUPS, groupIds);
+    }
+
+    /**
+     * Adds signed deltas, e.g. the old amount negated and the new one for a modified payment.
+     */
+    public void add(Collection<PaymentTotal> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<PaymentTotal> ordered = new ArrayList<>(deltas);
+        ordered.sort(Comparator.comparing(PaymentTotal::debtorIban)
+                .thenComparing(PaymentTotal::currency)
+                .thenComparing(PaymentTotal::requestedExecutionDate));
+        jdbcTemplate.batchUpdate(ADD, ordered, ordered.size(), (statement, delta) -> {
+            statement.setString(1, delta.debtorIban());
+            statement.setString(2, delta.currency());
+            statement.setObject(3, delta.requestedExecutionDate());
+            statement.setLong(4, delta.paymentCount());
+            statement.setBigDecimal(5, delta.totalAmount());
+        });
+    }
+
+    /**
+     * Totals with at least one payment; null filters match everything, the date range is inclusive.
+     */
+    public List<PaymentTotal> find(String debtorIban, String currency, LocalDate from, LocalDate to) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT debtor_iban, currency, requested_execution_date, payment_count, total_amount
+                FROM payment_totals WHERE payment_count > 0""");
+        List<Object> args = new ArrayList<>();
+        where(sql, args, "debtor_iban = ?", debtorIban);
+        where(sql, args, "currency = ?", currency);
+        where(sql, args, "requested_execution_date >= ?", from);
+        where(sql, args, "requested_execution_date <= ?", to);
+        sql.append(" ORDER BY debtor_iban, currency, requested_execution_date");
+        return jdbcTemplate.query(sql.toString(), (rs, row) -> new PaymentTotal(
+                rs.getString(1), rs.getString(2), rs.getObject(3, LocalDate.class), rs.getLong(4),
+                rs.getBigDecimal(5)), args.toArray());
+    }
+
+    /**
+     * Recomputes all totals from the payments. Writers that have not committed yet are waited for, and
+     * writers that start meanwhile wait, so no delta is lost or counted twice.
+     *
+     * @return number of totals rows
+     */
+    public int rebuild() {
+        jdbcTemplate.execute("LOCK TABLE payment_totals IN EXCLUSIVE MODE");
+        jdbcTemplate.update("DELETE FROM payment_totals");
+        return jdbcTemplate.update(REBUILD);
+    }
+
+    private void updateByIds(String sql, long[] ids) {
+        if (ids.length == 0) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            Long[] boxed = new Long[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                boxed[i] = ids[i];
+            }
+            statement.setArray(1, connection.createArrayOf("bigint", boxed));
+            return statement;
+        });
+    }
+
+    private static void where(StringBuilder sql, List<Object> args, String condition, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(condition);
+            args.add(value);
+        }
+    }
+}
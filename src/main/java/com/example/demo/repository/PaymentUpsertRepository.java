@@ -0,0 +1,130 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Idempotent inserts keyed on the natural identifiers ({@code external_id},
+ * {@code end_to_end_identification}): rows that already exist are skipped by PostgreSQL instead of
+ * failing the transaction, and the ids of the rows written are returned so the caller can tell which
+ * were skipped. Each method writes all rows in one statement by passing columns as arrays to
+ * {@code unnest}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentUpsertRepository {
+
+    private static final String INSERT_GROUPS = """
+            INSERT INTO payment_groups (id, debtor_iban, debtor_name, requested_execution_date,
+                                        external_id, uname, tcif, country, source_system)
+            SELECT * FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::date[],
+                                 ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[])
+            ON CONFLICT (external_id) DO NOTHING
+            RETURNING id""";
+
+    private static final String INSERT_PAYMENTS = """
+            INSERT INTO payments (id, payment_group_id, end_to_end_identification, currency, amount,
+                                  creditor_name, creditor_iban, remittance_information)
+            SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::varchar[], ?::varchar[], ?::numeric[],
+                                 ?::varchar[], ?::varchar[], ?::varchar[])
+            ON CONFLICT (end_to_end_identification) DO NOTHING
+            RETURNING id""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts {@code groups}, using {@code ids[i]} for {@code groups.get(i)}.
+     *
+     * @return ids of the groups actually inserted; groups whose external_id already existed are absent
+     */
+    public List<Long> insertGroupsIfAbsent(long[] ids, List<PaymentGroupRecord> groups) {
+        int size = groups.size();
+        Long[] groupIds = new Long[size];
+        String[] debtorIbans = new String[size];
+        String[] debtorNames = new String[size];
+        String[] executionDates = new String[size];
+        String[] externalIds = new String[size];
+        String[] unames = new String[size];
+        String[] tcifs = new String[size];
+        String[] countries = new String[size];
+        String[] sourceSystems = new String[size];
+        for (int i = 0; i < size; i++) {
+            PaymentGroupRecord group = groups.get(i);
+            groupIds[i] = ids[i];
+            debtorIbans[i] = group.debtorAccount() == null ? null : group.debtorAccount().iban();
+            debtorNames[i] = group.debtorName();
+            executionDates[i] = group.requestedExecutionDate() == null ? null : group.requestedExecutionDate().toString();
+            externalIds[i] = group.externalId();
+            unames[i] = group.uname();
+            tcifs[i] = group.tcif();
+            countries[i] = group.country();
+            sourceSystems[i] = group.sourceSystem();
+        }
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_GROUPS);
+            statement.setArray(1, connection.createArrayOf("bigint", groupIds));
+            statement.setArray(2, connection.createArrayOf("varchar", debtorIbans));
+            statement.setArray(3, connection.createArrayOf("varchar", debtorNames));
+            statement.setArray(4, connection.createArrayOf("varchar", executionDates));
+            statement.setArray(5, connection.createArrayOf("varchar", externalIds));
+            statement.setArray(6, connection.createArrayOf("varchar", unames));
+            statement.setArray(7, connection.createArrayOf("varchar", tcifs));
+            statement.setArray(8, connection.createArrayOf("varchar", countries));
+            statement.setArray(9, connection.createArrayOf("varchar", sourceSystems));
+            return statement;
+        }, (rs, rowNum) -> rs.getLong(1));
+    }
+
+    /**
+     * Inserts {@code payments}, using {@code ids[i]} and {@code groupIds[i]} for {@code payments.get(i)}.
+     *
+     * @return ids of the payments actually inserted; payments whose end_to_end_identification already
+     * existed, or appeared earlier in {@code payments}, are absent
+     */
+    public List<Long> insertPaymentsIfAbsent(long[] ids, long[] groupIds, List<PaymentRecord> payments) {
+        if (payments.isEmpty()) {
+            return List.of();
+        }
+        int size = payments.size();
+        Long[] paymentIds = new Long[size];
+        Long[] paymentGroupIds = new Long[size];
+        String[] endToEndIds = new String[size];
+        String[] currencies = new String[size];
+        BigDecimal[] amounts = new BigDecimal[size];
+        String[] creditorNames = new String[size];
+        String[] creditorIbans = new String[size];
+        String[] remittances = new String[size];
+        for (int i = 0; i < size; i++) {
+            PaymentRecord payment = payments.get(i);
+            paymentIds[i] = ids[i];
+            paymentGroupIds[i] = groupIds[i];
+            endToEndIds[i] = payment.endToEndIdentification();
+            currencies[i] = payment.instructedAmount() == null ? null : payment.instructedAmount().currency();
+            amounts[i] = payment.instructedAmount() == null ? null : payment.instructedAmount().amount();
+            creditorNames[i] = payment.creditorName();
+            creditorIbans[i] = payment.creditorAccount() == null ? null : payment.creditorAccount().iban();
+            remittances[i] = payment.remittanceInformationUnstructured();
+        }
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_PAYMENTS);
+            statement.setArray(1, connection.createArrayOf("bigint", paymentIds));
+            statement.setArray(2, connection.createArrayOf("bigint", paymentGroupIds));
+            statement.setArray(3, connection.createArrayOf("varchar", endToEndIds));
+            statement.setArray(4, connection.createArrayOf("varchar", currencies));
+            statement.setArray(5, connection.createArrayOf("numeric", amounts));
+            statement.setArray(6, connection.createArrayOf("varchar", creditorNames));
+            statement.setArray(7, connection.createArrayOf("varchar", creditorIbans));
+            statement.setArray(8, connection.createArrayOf("varchar", remittances));
+            return statement;
+        }, (rs, rowNum) -> rs.getLong(1));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out entity ids for writes that bypass Hibernate (COPY, native upserts) while staying
+ * compatible with Hibernate's pooled optimizer: every {@code nextval} returns the high end of a
+ * block of {@code allocationSize} ids, and the whole block {@code (hi - allocationSize, hi]} is ours.
+ */
+@Component
+@RequiredArgsConstructor
+public class SequenceIdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Unused tail of the last block per sequence: {next, last}
+    private final Map<String, long[]> pools = new HashMap<>();
+
+    /**
+     * Like {@link #allocate} but keeps the unused part of the last block for the next call, so
+     * small, frequent allocations (one group at a time) cost one {@code nextval} per block.
+     */
+    public synchronized long[] nextIds(String sequenceName, int allocationSize, int count) {
+        long[] ids = new long[count];
+        long[] pool = pools.computeIfAbsent(sequenceName, name -> new long[]{1, 0});
+        int filled = 0;
+        while (filled < count && pool[0] <= pool[1]) {
+            ids[filled++] = pool[0]++;
+        }
+        int missing = count - filled;
+        if (missing > 0) {
+            int fetched = (missing + allocationSize - 1) / allocationSize * allocationSize;
+            long[] fresh = allocate(sequenceName, allocationSize, fetched);
+            System.arraycopy(fresh, 0, ids, filled, missing);
+            // Blocks are full, so the leftover is a contiguous tail of the last one
+            if (missing < fetched) {
+                pool[0] = fresh[missing];
+                pool[1] = fresh[fetched - 1];
+            }
+        }
+        return ids;
+    }
+
+    public long[] allocate(String sequenceName, int allocationSize, int count) {
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            int blocks = (count - filled + allocationSize - 1) / allocationSize;
+            List<Long> highValues = jdbcTemplate.queryForList(
+                    "SELECT nextval(?::regclass) FROM generate_series(1, ?)", Long.class, sequenceName, blocks);
+            for (long hi : highValues) {
+                // A fresh sequence starts below one block; Hibernate treats that first value specially, so skip it
+                if (hi < allocationSize) {
+                    continue;
+                }
+                for (long id = hi - allocationSize + 1; id <= hi && filled < count; id++) {
+                    ids[filled++] = id;
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter of strings, safe for concurrent {@link #put} and {@link #mightContain}.
+ * {@code mightContain} never returns {@code false} for a string that was put, and returns {@code true}
+ * for one that was not with about the configured probability while at most {@link #capacity()}
+ * strings have been put. Strings cannot be removed.
+ */
+final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final long capacity;
+
+    BloomFilter(long capacity, double falsePositiveRate) {
+        if (capacity < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter size: " + capacity + " at " + falsePositiveRate);
+        }
+        long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+        long wordCount = Math.max(1, (optimalBits + 63) / 64);
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter for " + capacity + " strings is too large");
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bits = wordCount * 64;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * LN2));
+        this.capacity = capacity;
+    }
+
+    void put(CharSequence value) {
+        long hash = hash(value);
+        long step = step(hash);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(hash + i * step, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            // Most bits of a warm filter are already set; only write the ones that are not
+            while ((current & mask) == 0 && !words.weakCompareAndSetVolatile(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    boolean mightContain(CharSequence value) {
+        long hash = hash(value);
+        long step = step(hash);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(hash + i * step, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    long bitSize() {
+        return bits;
+    }
+
+    int hashCount() {
+        return hashes;
+    }
+
+    // FNV-1a over the chars with the MurmurHash3 finalizer, so similar ids like "e2e-1" and "e2e-2" spread
+    private static long hash(CharSequence value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // Second hash for double hashing (Kirsch-Mitzenmacher); odd, so it never degenerates to one bit
+    private static long step(long hash) {
+        return mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.service;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An import contains payments whose end-to-end ids are already stored or repeated within it;
+ * nothing of it has been written.
+ */
+public class DuplicateEndToEndIdException extends RuntimeException {
+
+    private static final int MAX_IDS_IN_MESSAGE = 10;
+
+    private final Set<String> duplicates;
+
+    public DuplicateEndToEndIdException(Set<String> duplicates) {
+        super(duplicates.size() + " end-to-end ids already exist or are repeated: "
+                + String.join(", ", List.copyOf(duplicates).subList(0, Math.min(MAX_IDS_IN_MESSAGE, duplicates.size())))
+                + (duplicates.size() > MAX_IDS_IN_MESSAGE ? ", ..." : ""));
+        this.duplicates = Collections.unmodifiableSet(new LinkedHashSet<>(duplicates));
+    }
+
+    public Set<String> getDuplicates() {
+        return duplicates;
+    }
+}
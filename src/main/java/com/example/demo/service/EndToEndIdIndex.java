@@ -0,0 +1,167 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.EndToEndIdRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-check for {@code end_to_end_identification} uniqueness. A {@link BloomFilter} of the stored
+ * ids tells almost every id of an import apart as certainly new, so only the few possible hits are
+ * confirmed, all with one query, instead of a duplicate surfacing as a failed insert that rolls the
+ * whole import back.
+ * <p>
+ * The filter is filled from the database in the background after startup; until then every id is a
+ * possible hit. Writers {@link #add} ids when they insert them, before commit, so a rolled back insert
+ * only leaves a false positive. Bloom filters cannot forget, so deletes are only counted, and the filter
+ * is rebuilt once it holds more ids than it was sized for or too many of them are gone. An id missed
+ * meanwhile is still caught by the unique constraint.
+ * <p>
+ * The filter is per instance: ids stored by other instances only get into it with its next rebuild. A
+ * duplicate of one of them passes the pre-check and fails the insert, which {@link PaymentService} reports
+ * as the same {@link DuplicateEndToEndIdException}, after writing nothing.
+ */
+@Component
+@Slf4j
+public class EndToEndIdIndex {
+
+    private static final int PAGE_SIZE = 10_000;
+
+    private final EndToEndIdRepository endToEndIdRepository;
+    private final long expectedIds;
+    private final double falsePositiveRate;
+
+    // null until the first build has finished
+    private volatile BloomFilter filter;
+    // Being filled by a rebuild; ids added meanwhile go into both
+    private volatile BloomFilter next;
+    private final AtomicLong added = new AtomicLong();
+    private final AtomicLong removed = new AtomicLong();
+
+    public EndToEndIdIndex(EndToEndIdRepository endToEndIdRepository,
+                           @Value("${app.end-to-end-id-index.expected-ids:1000000}") long expectedIds,
+                           @Value("${app.end-to-end-id-index.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.endToEndIdRepository = endToEndIdRepository;
+        this.expectedIds = Math.max(1, expectedIds);
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * @return the ids of {@code endToEndIds} that are already stored or occur more than once in it
+     */
+    public Set<String> findDuplicates(Collection<String> endToEndIds) {
+        BloomFilter current = filter;
+        Set<String> seen = new HashSet<>(endToEndIds.size() * 2);
+        Set<String> duplicates = new LinkedHashSet<>();
+        List<String> possiblyStored = new ArrayList<>();
+        for (String id : endToEndIds) {
+            if (id == null) {
+                continue;
+            }
+            if (!seen.add(id)) {
+                duplicates.add(id);
+            } else if (current == null || current.mightContain(id)) {
+                possiblyStored.add(id);
+            }
+        }
+        if (!possiblyStored.isEmpty()) {
+            log.debug("Confirming {} of {} end-to-end ids against the database", possiblyStored.size(), seen.size());
+            duplicates.addAll(endToEndIdRepository.findExisting(possiblyStored));
+        }
+        return duplicates;
+    }
+
+    /**
+     * Records an id being inserted. Call before commit: an id added for nothing costs a confirming
+     * lookup later, while one missing lets its duplicate through to the unique constraint.
+     */
+    public void add(String endToEndId) {
+        if (endToEndId == null) {
+            return;
+        }
+        // next before filter: a rebuild publishes its filter before clearing next, so one of them is the new one
+        BloomFilter building = next;
+        if (building != null) {
+            building.put(endToEndId);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(endToEndId);
+        }
+        added.incrementAndGet();
+    }
+
+    /**
+     * Records that {@code count} payments were deleted or archived.
+     */
+    public void removed(long count) {
+        removed.addAndGet(count);
+    }
+
+    boolean isReady() {
+        return filter != null;
+    }
+
+    /**
+     * Builds the filter after startup and rebuilds it once it is overfull or mostly stale.
+     */
+    @Scheduled(fixedDelayString = "${app.end-to-end-id-index.check-interval-ms:60000}")
+    public void maintain() {
+        BloomFilter current = filter;
+        if (current != null && added.get() <= current.capacity() && removed.get() <= current.capacity() / 2) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Failed to build the end-to-end id index, duplicates are checked in the database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return number of stored ids read into the new filter
+     */
+    synchronized long rebuild() {
+        long started = System.nanoTime();
+        // Room to grow, so a busy day does not trigger the next rebuild
+        BloomFilter building = new BloomFilter(Math.max(expectedIds, 2 * endToEndIdRepository.count()), falsePositiveRate);
+        next = building;
+        added.set(0);
+        removed.set(0);
+        long read = 0;
+        try {
+            long[] pageCount = new long[1];
+            long after = 0;
+            while (true) {
+                pageCount[0] = 0;
+                long last = endToEndIdRepository.forEachAfter(after, PAGE_SIZE, id -> {
+                    building.put(id);
+                    pageCount[0]++;
+                });
+                read += pageCount[0];
+                if (last == after) {
+                    break;
+                }
+                after = last;
+            }
+        } catch (RuntimeException e) {
+            next = null;
+            throw e;
+        }
+        filter = building;
+        next = null;
+        added.addAndGet(read);
+        log.info("Built end-to-end id index of {} ids in {} ms ({} KB, {} hashes)", read,
+                (System.nanoTime() - started) / 1_000_000, building.bitSize() / 8 / 1024, building.hashCount());
+        return read;
+    }
+}
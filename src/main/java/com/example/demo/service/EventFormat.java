@@ -0,0 +1,12 @@
+package com.example.demo.service;
+
+/**
+ * Wire format of a topic's record values, selected per topic with
+ * {@code app.kafka.topics.future-payment.<event>-format}.
+ */
+public enum EventFormat {
+    /** UTF-8 JSON, readable by any consumer. */
+    JSON,
+    /** {@link PaymentEventCodec} encoding, roughly half the size of JSON. */
+    BINARY
+}
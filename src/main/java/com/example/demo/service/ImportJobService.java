@@ -0,0 +1,380 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ImportError;
+import com.example.demo.dto.ImportJobView;
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.model.ImportJob;
+import com.example.demo.model.PaymentGroup;
+import com.example.demo.repository.ImportJobRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous, resumable imports. A submitted file is spooled to {@code app.import.jobs.directory} and
+ * imported on a background thread in chunks of {@code app.import.batch-size} groups. Each chunk is one
+ * transaction that also advances the job's checkpoint, so no transaction or lock outlives a chunk and a
+ * crash loses at most the chunk in flight. A running job whose owner stops sending heartbeats is resumed
+ * from its checkpoint by whichever instance polls next; for that the directory must be shared.
+ * <p>
+ * Groups are validated like in {@link PaymentStreamImportService}; invalid ones are reported and skipped.
+ * A chunk that fails to import is retried group by group, each with its own checkpoint, so one bad group
+ * does not reject its neighbours.
+ */
+@Service
+@Slf4j
+public class ImportJobService implements DisposableBean {
+
+    static final int MAX_REPORTED_FAILURES = 1000;
+
+    private final ImportJobRepository importJobRepository;
+    private final PaymentService paymentService;
+    private final PaymentValidator paymentValidator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final Duration staleAfter;
+    private final ExecutorService runners;
+    // Owner of the jobs this instance runs; a restarted instance is a new owner
+    private final String owner = UUID.randomUUID().toString();
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    public ImportJobService(ImportJobRepository importJobRepository,
+                            PaymentService paymentService,
+                            PaymentValidator paymentValidator,
+                            ObjectMapper objectMapper,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${app.import.jobs.directory:${java.io.tmpdir}/payment-import-jobs}") String directory,
+                            @Value("${app.import.jobs.threads:1}") int threads,
+                            @Value("${app.import.jobs.stale-after-ms:120000}") long staleAfterMs) {
+        this.importJobRepository = importJobRepository;
+        this.paymentService = paymentService;
+        this.paymentValidator = paymentValidator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.directory = Path.of(directory);
+        this.staleAfter = Duration.ofMillis(staleAfterMs);
+        this.runners = Executors.newFixedThreadPool(Math.max(1, threads), runnerThreads());
+    }
+
+    /**
+     * Spools {@code body}, a JSON array of payment groups, and starts importing it in the background.
+     */
+    public ImportJobView submit(InputStream body) throws IOException {
+        Files.createDirectories(directory);
+        Path file = Files.createTempFile(directory, "import-", ".json");
+        try {
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        ImportJob job = importJobRepository.save(ImportJob.builder()
+                .status(ImportJob.Status.QUEUED)
+                .filePath(file.toString())
+                .build());
+        log.info("Submitted import job {} ({} bytes)", job.getId(), Files.size(file));
+        start(job.getId());
+        return getJob(job.getId()).orElseThrow();
+    }
+
+    public Optional<ImportJobView> getJob(long id) {
+        return importJobRepository.findById(id).map(job -> ImportJobView.from(job, Instant.now()));
+    }
+
+    /**
+     * Keeps the jobs of this instance alive and takes over jobs that are queued or whose owner is gone,
+     * including this instance's own jobs from before a restart.
+     */
+    @Scheduled(fixedDelayString = "${app.import.jobs.poll-interval-ms:10000}")
+    public void resumeJobs() {
+        Instant now = Instant.now();
+        if (!running.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> importJobRepository.heartbeat(Set.copyOf(running), owner, now));
+        }
+        for (Long id : importJobRepository.findResumableIds(now.minus(staleAfter))) {
+            if (start(id)) {
+                log.info("Resuming import job {} from its checkpoint", id);
+            }
+        }
+    }
+
+    private boolean start(long id) {
+        if (!running.add(id)) {
+            return false;
+        }
+        boolean claimed;
+        try {
+            claimed = Boolean.TRUE.equals(transactionTemplate.execute(status -> claim(id)));
+        } catch (OptimisticLockingFailureException e) {
+            // Another instance claimed it first
+            claimed = false;
+        }
+        if (!claimed) {
+            running.remove(id);
+            return false;
+        }
+        runners.submit(() -> run(id));
+        return true;
+    }
+
+    private Boolean claim(long id) {
+        ImportJob job = importJobRepository.findById(id).orElse(null);
+        Instant now = Instant.now();
+        boolean resumable = job != null && (job.getStatus() == ImportJob.Status.QUEUED
+                || job.getStatus() == ImportJob.Status.RUNNING && job.getHeartbeatAt().isBefore(now.minus(staleAfter)));
+        if (!resumable) {
+            return false;
+        }
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(now);
+        }
+        job.setStatus(ImportJob.Status.RUNNING);
+        job.setOwner(owner);
+        job.setHeartbeatAt(now);
+        job.setRunStartedAt(now);
+        job.setRunStartIndex(job.getNextIndex());
+        return true;
+    }
+
+    private void run(long id) {
+        try {
+            ImportJob job = importJobRepository.findById(id).orElseThrow();
+            Path file = Path.of(job.getFilePath());
+            if (job.getTotalGroups() == null) {
+                long total = countGroups(file);
+                inTransaction(() -> owned(id).setTotalGroups(total));
+            }
+            try (InputStream in = Files.newInputStream(file);
+                 PaymentGroupRecordReader reader = new PaymentGroupRecordReader(objectMapper, in)) {
+                long index = 0;
+                for (; index < job.getNextIndex() && reader.hasNext(); index++) {
+                    reader.skip();
+                }
+                int chunkSize = Math.max(1, batchSize);
+                List<MappedGroup> chunk = new ArrayList<>(chunkSize);
+                while (reader.hasNext()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        log.info("Import job {} stopped at group {}; it resumes from there", id, index);
+                        return;
+                    }
+                    chunk.add(map(reader.nextTree(), index++));
+                    if (chunk.size() == chunkSize || !reader.hasNext()) {
+                        persist(id, chunk, index);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+            }
+            finish(id, ImportJob.Status.COMPLETED, null);
+        } catch (JobLostException e) {
+            log.warn("Import job {} was taken over by another instance", id);
+        } catch (IOException | RuntimeException e) {
+            log.error("Import job {} failed", id, e);
+            try {
+                finish(id, ImportJob.Status.FAILED, String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+            } catch (JobLostException lost) {
+                log.warn("Import job {} was taken over by another instance", id);
+            }
+        } finally {
+            running.remove(id);
+        }
+    }
+
+    private long countGroups(Path file) throws IOException {
+        long count = 0;
+        try (InputStream in = Files.newInputStream(file);
+             PaymentGroupRecordReader reader = new PaymentGroupRecordReader(objectMapper, in)) {
+            while (reader.hasNext()) {
+                reader.skip();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private MappedGroup map(JsonNode tree, long index) {
+        String externalId = tree.path("externalId").asText(null);
+        PaymentGroupRecord record;
+        try {
+            record = objectMapper.treeToValue(tree, PaymentGroupRecord.class);
+        } catch (IOException | IllegalArgumentException e) {
+            return new MappedGroup(index, externalId, null, List.of("Unreadable payment group: " + e.getMessage()));
+        }
+        List<String> errors = paymentValidator.validate(record);
+        if (!errors.isEmpty()) {
+            return new MappedGroup(index, externalId, null, errors);
+        }
+        return new MappedGroup(index, externalId, PaymentService.convertToEntity(record), List.of());
+    }
+
+    /**
+     * Imports {@code chunk} and moves the checkpoint to {@code nextIndex}, the index after its last group.
+     */
+    private void persist(long id, List<MappedGroup> chunk, long nextIndex) {
+        List<MappedGroup> valid = chunk.stream().filter(group -> group.entity() != null).toList();
+        List<ImportError> failures = chunk.stream().filter(group -> group.entity() == null).map(MappedGroup::error).toList();
+        try {
+            inTransaction(() -> {
+                if (!valid.isEmpty()) {
+                    paymentService.importGroups(valid.stream().map(MappedGroup::entity).toList());
+                }
+                advance(id, nextIndex, valid.size(), payments(valid), failures);
+            });
+            return;
+        } catch (JobLostException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.warn("Chunk of {} groups of import job {} failed, retrying one by one: {}", chunk.size(), id, e.getMessage());
+        }
+
+        // In input order, so the checkpoint still only ever covers a prefix of the file
+        List<ImportError> pending = new ArrayList<>();
+        for (MappedGroup group : chunk) {
+            if (group.entity() == null) {
+                pending.add(group.error());
+                continue;
+            }
+            List<ImportError> covered = List.copyOf(pending);
+            try {
+                inTransaction(() -> {
+                    // A fresh entity: the failed transaction may have left ids on the first one
+                    paymentService.importPayments(List.of(PaymentGroupRecord.from(group.entity())));
+                    advance(id, group.index() + 1, 1, payments(List.of(group)), covered);
+                });
+                pending.clear();
+            } catch (JobLostException e) {
+                throw e;
+            } catch (RuntimeException groupError) {
+                log.warn("Import job {} failed to import payment group with external_id: {}, error: {}",
+                        id, group.externalId(), groupError.getMessage());
+                pending.add(new ImportError(group.index(), group.externalId(),
+                        List.of(String.valueOf(NestedExceptionUtils.getMostSpecificCause(groupError).getMessage()))));
+            }
+        }
+        inTransaction(() -> advance(id, nextIndex, 0, 0, pending));
+    }
+
+    // Runs in the transaction that imported the groups, so progress is committed together with them
+    private void advance(long id, long nextIndex, long groups, long payments, List<ImportError> failures) {
+        ImportJob job = owned(id);
+        job.setNextIndex(nextIndex);
+        job.setGroupsImported(job.getGroupsImported() + groups);
+        job.setPaymentsImported(job.getPaymentsImported() + payments);
+        job.setGroupsFailed(job.getGroupsFailed() + failures.size());
+        int room = MAX_REPORTED_FAILURES - job.getErrors().size();
+        if (!failures.isEmpty() && room > 0) {
+            List<ImportError> errors = new ArrayList<>(job.getErrors());
+            errors.addAll(failures.subList(0, Math.min(room, failures.size())));
+            job.setErrors(errors);
+        }
+    }
+
+    private void finish(long id, ImportJob.Status status, String error) {
+        Path[] file = new Path[1];
+        inTransaction(() -> {
+            ImportJob job = owned(id);
+            job.setStatus(status);
+            job.setError(error);
+            job.setFinishedAt(Instant.now());
+            file[0] = Path.of(job.getFilePath());
+        });
+        ImportJob job = importJobRepository.findById(id).orElseThrow();
+        log.info("Import job {} {}: {} groups, {} payments imported, {} groups failed", id, status,
+                job.getGroupsImported(), job.getPaymentsImported(), job.getGroupsFailed());
+        try {
+            Files.deleteIfExists(file[0]);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled file {} of import job {}: {}", file[0], id, e.getMessage());
+        }
+    }
+
+    // The job as of this transaction, if this instance still owns it
+    private ImportJob owned(long id) {
+        ImportJob job = importJobRepository.findById(id).orElseThrow(JobLostException::new);
+        if (job.getStatus() != ImportJob.Status.RUNNING || !owner.equals(job.getOwner())) {
+            throw new JobLostException();
+        }
+        job.setHeartbeatAt(Instant.now());
+        return job;
+    }
+
+    private void inTransaction(Runnable work) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> work.run());
+        } catch (OptimisticLockingFailureException e) {
+            // Only the job row is updated concurrently: another instance claimed it
+            throw new JobLostException();
+        }
+    }
+
+    private static long payments(List<MappedGroup> groups) {
+        return groups.stream()
+                .mapToLong(group -> group.entity().getPayments() == null ? 0 : group.entity().getPayments().size())
+                .sum();
+    }
+
+    /**
+     * Stops the runners and hands this instance's jobs back to the queue, so another instance or the
+     * next start resumes them without waiting for their heartbeat to go stale.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        runners.shutdownNow();
+        runners.awaitTermination(10, TimeUnit.SECONDS);
+        if (!running.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> importJobRepository.release(owner));
+            } catch (RuntimeException e) {
+                log.warn("Could not release import jobs {}, they resume once stale: {}", running, e.getMessage());
+            }
+        }
+    }
+
+    private static ThreadFactory runnerThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "import-job-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // entity is null when the group was rejected
+    private record MappedGroup(long index, String externalId, PaymentGroup entity, List<String> errors) {
+        ImportError error() {
+            return new ImportError(index, externalId, errors);
+        }
+    }
+
+    private static final class JobLostException extends RuntimeException {
+    }
+}
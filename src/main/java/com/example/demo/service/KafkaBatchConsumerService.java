@@ -0,0 +1,91 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupDiff;
+import com.example.demo.dto.PaymentGroupRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Batch counterpart of {@link KafkaConsumerService}, enabled with {@code app.kafka.consumer.batch.enabled=true}.
+ * Each poll is written in one transaction and its offsets are committed once. A batch rejected by a
+ * constraint violation is replayed record by record so that only the offending events are dropped;
+ * any other failure propagates and the container redelivers the whole batch.
+ */
+@Service
+@ConditionalOnProperty(name = "app.kafka.consumer.batch.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaBatchConsumerService {
+
+    private final PaymentService paymentService;
+    private final PaymentIngestService paymentIngestService;
+    private final PaymentMetrics paymentMetrics;
+
+    @KafkaListener(topics = "${app.kafka.topics.future-payment.created}",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeCreated(List<PaymentGroupRecord> records,
+                               @Header(KafkaHeaders.RECEIVED_TIMESTAMP) List<Long> timestamps) {
+        long started = System.nanoTime();
+        List<PaymentGroupRecord> batch = withoutUnconvertible(records, "payment.created");
+        try {
+            int stored = paymentIngestService.ingestAll(batch);
+            log.info("[KAFKA CONSUMER] Processed batch of {} payment.created events ({} stored)", batch.size(), stored);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("[KAFKA CONSUMER] Batch of {} payment.created events rejected, retrying one by one: {}",
+                    batch.size(), e.getMessage());
+            ingestOneByOne(batch);
+        }
+        paymentMetrics.recordConsumed("payment.created", PaymentMetrics.MODE_BATCH, System.nanoTime() - started, timestamps);
+    }
+
+    @KafkaListener(topics = "${app.kafka.topics.future-payment.modified}",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeModified(List<PaymentGroupDiff> diffs,
+                                @Header(KafkaHeaders.RECEIVED_TIMESTAMP) List<Long> timestamps) {
+        long started = System.nanoTime();
+        List<PaymentGroupDiff> batch = withoutUnconvertible(diffs, "payment.modified");
+        int updated = paymentService.applyModified(batch);
+        log.info("[KAFKA CONSUMER] Processed batch of {} payment.modified events ({} rows updated)", batch.size(), updated);
+        paymentMetrics.recordConsumed("payment.modified", PaymentMetrics.MODE_BATCH, System.nanoTime() - started, timestamps);
+    }
+
+    @KafkaListener(topics = "${app.kafka.topics.future-payment.deleted}",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consumeDeleted(List<Long> ids, @Header(KafkaHeaders.RECEIVED_TIMESTAMP) List<Long> timestamps) {
+        long started = System.nanoTime();
+        List<Long> batch = withoutUnconvertible(ids, "payment.deleted");
+        int deleted = paymentService.deleteGroups(batch);
+        log.info("[KAFKA CONSUMER] Processed batch of {} payment.deleted events ({} deleted)", batch.size(), deleted);
+        paymentMetrics.recordConsumed("payment.deleted", PaymentMetrics.MODE_BATCH, System.nanoTime() - started, timestamps);
+    }
+
+    // Each ingest runs in its own transaction, so a bad record does not roll back the others
+    private void ingestOneByOne(List<PaymentGroupRecord> batch) {
+        for (PaymentGroupRecord record : batch) {
+            try {
+                paymentIngestService.ingest(record);
+            } catch (DataIntegrityViolationException e) {
+                log.error("[KAFKA CONSUMER] Dropping invalid payment.created event with external_id: {}, error: {}",
+                        record.externalId(), e.getMessage());
+            }
+        }
+    }
+
+    // The batch converter leaves null in place of records it could not convert
+    private static <T> List<T> withoutUnconvertible(List<T> records, String event) {
+        List<T> batch = records.stream().filter(Objects::nonNull).toList();
+        if (batch.size() < records.size()) {
+            log.error("[KAFKA CONSUMER] Dropping {} unreadable {} events", records.size() - batch.size(), event);
+        }
+        return batch;
+    }
+}
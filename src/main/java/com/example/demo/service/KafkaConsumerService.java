@@ -1,41 +1,98 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.PaymentGroupDiff;
 import com.example.demo.dto.PaymentGroupRecord;
 import com.example.demo.model.PaymentGroup;
 import com.example.demo.repository.PaymentGroupRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
 @Service
+@ConditionalOnProperty(name = "app.kafka.consumer.batch.enabled", havingValue = "false", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class KafkaConsumerService {
 
     private final PaymentService paymentService;
+    private final PaymentIngestService paymentIngestService;
+    private final PaymentMetrics paymentMetrics;
+
+    // Per-record logs are DEBUG; at INFO only every n-th record of a topic is logged
+    @Value("${app.logging.consumer.sample-rate:1000}")
+    private int logSampleRate;
+
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong modifiedCount = new AtomicLong();
+    private final AtomicLong deletedCount = new AtomicLong();
 
     @KafkaListener(topics = "${app.kafka.topics.future-payment.created}")
     @Transactional
-    public void consumeCreated(PaymentGroupRecord record) {
-        log.info("[KAFKA CONSUMER] Received payment.created event for debtor: {}, external_id: {}", 
+    public void consumeCreated(PaymentGroupRecord record,
+                               @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp) {
+        long started = System.nanoTime();
+        log.debug("[KAFKA CONSUMER] Received payment.created event for debtor: {}, external_id: {}",
                 record.debtorName(), record.externalId());
-        // Verify if it already exists (idempotency) - in this simple case we just save
-        paymentService.importPayments(java.util.List.of(record));
-        log.info("[KAFKA CONSUMER] Successfully processed payment.created event for external_id: {}", 
-                record.externalId());
+        // Idempotent on external_id and does not re-emit payment.created
+        boolean stored = paymentIngestService.ingest(record);
+        log.debug("[KAFKA CONSUMER] Successfully processed payment.created event for external_id: {} ({})",
+                record.externalId(), stored ? "stored" : "duplicate");
+        long processed = createdCount.incrementAndGet();
+        if (sampled(processed)) {
+            log.info("[KAFKA CONSUMER] Processed {} payment.created events, latest external_id: {} ({})",
+                    processed, record.externalId(), stored ? "stored" : "duplicate");
+        }
+        paymentMetrics.recordConsumed("payment.created", PaymentMetrics.MODE_RECORD,
+                System.nanoTime() - started, List.of(timestamp));
+    }
+
+    @KafkaListener(topics = "${app.kafka.topics.future-payment.modified}")
+    @Transactional
+    public void consumeModified(PaymentGroupDiff diff, @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp) {
+        long started = System.nanoTime();
+        log.debug("[KAFKA CONSUMER] Received payment.modified event for external_id: {}, version: {}",
+                diff.externalId(), diff.version());
+        // Only rows older than the event are written, so this instance's own events are no-ops
+        int updated = paymentService.applyModified(List.of(diff));
+        log.debug("[KAFKA CONSUMER] Successfully processed payment.modified event for external_id: {} ({} rows updated)",
+                diff.externalId(), updated);
+        long processed = modifiedCount.incrementAndGet();
+        if (sampled(processed)) {
+            log.info("[KAFKA CONSUMER] Processed {} payment.modified events, latest external_id: {}",
+                    processed, diff.externalId());
+        }
+        paymentMetrics.recordConsumed("payment.modified", PaymentMetrics.MODE_RECORD,
+                System.nanoTime() - started, List.of(timestamp));
     }
 
     @KafkaListener(topics = "${app.kafka.topics.future-payment.deleted}")
     @Transactional
-    public void consumeDeleted(Long id) {
-        log.info("[KAFKA CONSUMER] Received payment.deleted event for group id: {}", id);
-        try {
-            paymentService.deleteGroup(id);
-            log.info("[KAFKA CONSUMER] Successfully processed payment.deleted event for id: {}", id);
-        } catch (Exception e) {
-            log.warn("[KAFKA CONSUMER] Group already deleted or not found: {}, error: {}", id, e.getMessage());
+    public void consumeDeleted(Long id, @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp) {
+        long started = System.nanoTime();
+        log.debug("[KAFKA CONSUMER] Received payment.deleted event for group id: {}", id);
+        // Same path as the batch consumer: does not re-emit payment.deleted, and an unknown id deletes nothing
+        int deleted = paymentService.deleteGroups(List.of(id));
+        log.debug("[KAFKA CONSUMER] Successfully processed payment.deleted event for id: {} ({})",
+                id, deleted > 0 ? "deleted" : "not found");
+        long processed = deletedCount.incrementAndGet();
+        if (sampled(processed)) {
+            log.info("[KAFKA CONSUMER] Processed {} payment.deleted events, latest id: {} ({})",
+                    processed, id, deleted > 0 ? "deleted" : "not found");
         }
+        paymentMetrics.recordConsumed("payment.deleted", PaymentMetrics.MODE_RECORD,
+                System.nanoTime() - started, List.of(timestamp));
+    }
+
+    private boolean sampled(long processed) {
+        return logSampleRate <= 1 || processed % logSampleRate == 1;
     }
 }
@@ -1,17 +1,40 @@
 package com.example.demo.service;
 
+import com.example.demo.model.OutboxEvent;
+import com.example.demo.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records payment group events in the outbox table as part of the caller's transaction;
+ * {@link OutboxRelay} publishes them once committed, so an event exists exactly when its change does
+ * and callers never wait on the broker. Each topic is written as JSON or in the compact
+ * {@link PaymentEventCodec} format, depending on its {@link EventFormat}.
+ * <p>
+ * Events are keyed by the group's external_id. Kafka assigns a partition by hashing the key, so all
+ * events of one group land on the same partition and are consumed in order, while different groups
+ * spread over all partitions and listener threads.
+ * <p>
+ * Broker send and acknowledgement latency is measured where the send happens, in {@link OutboxRelay}.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class KafkaProducerService {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final PaymentMetrics paymentMetrics;
 
     // TODO: remove createdTopic from producer
     @Value("${app.kafka.topics.future-payment.created}")
@@ -23,18 +46,63 @@ public class KafkaProducerService {
     @Value("${app.kafka.topics.future-payment.deleted}")
     private String deletedTopic;
 
-    public void emitCreated(Object payload) {
-        log.info("Emitting payment created event to topic: {}", createdTopic);
-        kafkaTemplate.send(createdTopic, payload);
+    @Value("${app.kafka.topics.future-payment.created-format:JSON}")
+    private EventFormat createdFormat;
+
+    @Value("${app.kafka.topics.future-payment.modified-format:JSON}")
+    private EventFormat modifiedFormat;
+
+    @Value("${app.kafka.topics.future-payment.deleted-format:JSON}")
+    private EventFormat deletedFormat;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void emitCreated(String key, Object payload) {
+        log.debug("Queueing payment created event for topic: {}, key: {}", createdTopic, key);
+        enqueue(createdTopic, createdFormat, key, payload);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void emitModified(String key, Object payload) {
+        log.debug("Queueing payment modified event for topic: {}, key: {}", modifiedTopic, key);
+        enqueue(modifiedTopic, modifiedFormat, key, payload);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void emitDeleted(String key, Object payload) {
+        log.debug("Queueing payment deleted event for topic: {}, key: {}", deletedTopic, key);
+        enqueue(deletedTopic, deletedFormat, key, payload);
+    }
+
+    /**
+     * Queues one payment.deleted event per entry with a single batched insert into the outbox.
+     *
+     * @param payloadsByKey event payload by key, e.g. group id by external_id
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void emitDeletedAll(Map<String, ?> payloadsByKey) {
+        log.debug("Queueing {} payment deleted events for topic: {}", payloadsByKey.size(), deletedTopic);
+        List<OutboxEvent> events = new ArrayList<>(payloadsByKey.size());
+        payloadsByKey.forEach((key, payload) -> events.add(event(deletedTopic, deletedFormat, key, payload)));
+        outboxEventRepository.saveAll(events);
+        paymentMetrics.recordEmitted(deletedTopic, events.size());
     }
 
-    public void emitModified(Object payload) {
-        log.info("Emitting payment modified event to topic: {}", modifiedTopic);
-        kafkaTemplate.send(modifiedTopic, payload);
+    private void enqueue(String topic, EventFormat format, String key, Object payload) {
+        outboxEventRepository.save(event(topic, format, key, payload));
+        paymentMetrics.recordEmitted(topic, 1);
     }
 
-    public void emitDeleted(Object payload) {
-        log.info("Emitting payment deleted event to topic: {}", deletedTopic);
-        kafkaTemplate.send(deletedTopic, payload);
+    private OutboxEvent event(String topic, EventFormat format, String key, Object payload) {
+        try {
+            return OutboxEvent.builder()
+                    .topic(topic)
+                    .eventKey(key)
+                    .payload(format == EventFormat.BINARY
+                            ? PaymentEventCodec.encode(payload)
+                            : objectMapper.writeValueAsBytes(payload))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize event for topic: " + topic, e);
+        }
     }
 }
@@ -0,0 +1,178 @@
+package com.example.demo.service;
+
+import com.example.demo.model.OutboxEvent;
+import com.example.demo.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes committed outbox events to Kafka in the order of the transactions that wrote them, see
+ * {@link OutboxEventRepository#findOldest}. A change to a payment group reads the group's committed
+ * state before it writes, so its transaction orders after the one that wrote the group's previous
+ * event; ids alone do not, since each instance draws them from its own pooled block.
+ * <p>
+ * Each batch is read in one short transaction and sent outside of any, without waiting per record, so
+ * the producer can fill its batches and compress them; the rows are deleted in a second transaction
+ * only after every send of the batch was acknowledged. A failed batch stays in the table and is sent
+ * again on the next run, so delivery is at least once and consumers must be idempotent.
+ * <p>
+ * Only one instance relays at a time, under a session-level advisory lock held on a connection of its
+ * own for the whole batch. That connection stays idle outside a transaction, so waiting for the broker
+ * pins neither a snapshot nor row locks.
+ * <p>
+ * Events written after a transaction that is still open are held back until it ends, so latency is
+ * coupled to the longest writing transaction: a bulk-load COPY chunk ({@code app.bulk-load.chunk-size}),
+ * an archive batch ({@code app.archive.batch-size}) or a totals rebuild.
+ */
+@Service
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OutboxRelay implements DisposableBean {
+
+    // Only one instance relays at a time; concurrent relays could publish events of one key out of order
+    private static final long RELAY_LOCK_ID = 7_242_019L;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final PaymentMetrics paymentMetrics;
+
+    @Value("${app.outbox.relay.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.outbox.relay.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       ProducerFactory<String, byte[]> producerFactory,
+                       PaymentMetrics paymentMetrics) {
+        // Payloads are stored serialized already; send them as-is instead of through the JSON value serializer
+        this(outboxEventRepository, jdbcTemplate, transactionTemplate, new KafkaTemplate<>(producerFactory, Map.of(
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class)), paymentMetrics);
+    }
+
+    OutboxRelay(OutboxEventRepository outboxEventRepository,
+                JdbcTemplate jdbcTemplate,
+                TransactionTemplate transactionTemplate,
+                KafkaTemplate<String, byte[]> kafkaTemplate,
+                PaymentMetrics paymentMetrics) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.paymentMetrics = paymentMetrics;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval-ms:200}")
+    public void relay() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return number of events published, 0 if the outbox is empty or another instance holds the relay lock
+     */
+    int relayBatch() {
+        Integer relayed = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            if (!advisoryLock(connection, "pg_try_advisory_lock")) {
+                return 0;
+            }
+            try {
+                return relayLocked();
+            } finally {
+                advisoryLock(connection, "pg_advisory_unlock");
+            }
+        });
+        return relayed == null ? 0 : relayed;
+    }
+
+    private int relayLocked() {
+        List<OutboxEvent> events = transactionTemplate.execute(status ->
+                outboxEventRepository.findOldest(Limit.of(Math.max(1, batchSize))));
+        if (events == null || events.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<SendResult<String, byte[]>>> sends = events.stream()
+                .map(this::send)
+                .toList();
+        kafkaTemplate.flush();
+        await(sends);
+        paymentMetrics.recordOutboxBatch(events.size(), events.get(0).getCreatedAt());
+        List<Long> ids = events.stream().map(OutboxEvent::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deleteAllByIdInBatch(ids));
+        log.debug("Relayed {} outbox events to Kafka", events.size());
+        return events.size();
+    }
+
+    private static boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(?)")) {
+            statement.setLong(1, RELAY_LOCK_ID);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private CompletableFuture<SendResult<String, byte[]>> send(OutboxEvent event) {
+        long started = System.nanoTime();
+        return kafkaTemplate.send(event.getTopic(), event.getEventKey(), event.getPayload())
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        paymentMetrics.recordOutboxAck(System.nanoTime() - started);
+                    }
+                });
+    }
+
+    private void await(List<CompletableFuture<SendResult<String, byte[]>>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while publishing outbox events", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new RuntimeException("Failed to publish outbox events", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        kafkaTemplate.destroy();
+    }
+}
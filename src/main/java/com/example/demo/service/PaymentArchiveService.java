@@ -0,0 +1,132 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.PaymentArchiveRepository;
+import com.example.demo.repository.PaymentTotalsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the hot tables small by moving payment groups whose execution date is more than
+ * {@code app.archive.after-days} in the past, with their payments, into the month-partitioned archive
+ * tables. Runs in batches of {@code app.archive.batch-size} groups, each in its own transaction, and
+ * creates the archive partition of a month the first time it is needed. With
+ * {@code app.archive.retention-months} set, archive partitions older than that are detached.
+ * <p>
+ * Archived groups are no longer served by the API and emit no events; their external_id is no longer
+ * deduplicated, so {@code after-days} must stay well beyond any event redelivery window. It is also dropped
+ * from this instance's {@link RecentKeyCache}; other instances only hold it until it is evicted.
+ */
+@Service
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentArchiveService {
+
+    // Only one instance archives at a time
+    private static final long ARCHIVE_LOCK_ID = 7_242_020L;
+
+    private final PaymentArchiveRepository paymentArchiveRepository;
+    private final PaymentTotalsRepository paymentTotalsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentGroupCache paymentGroupCache;
+    private final EndToEndIdIndex endToEndIdIndex;
+    private final RecentKeyCache recentKeys;
+
+    // Months whose partitions are known to exist, so CREATE TABLE is only issued once per month
+    private final Set<YearMonth> partitions = new HashSet<>();
+
+    @Value("${app.archive.after-days:90}")
+    private int afterDays;
+
+    @Value("${app.archive.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.archive.retention-months:0}")
+    private int retentionMonths;
+
+    @Scheduled(cron = "${app.archive.cron:0 30 2 * * *}")
+    public void archive() {
+        try {
+            LocalDate before = LocalDate.now().minusDays(afterDays);
+            long groups = 0;
+            int archived;
+            do {
+                archived = archiveBatch(before);
+                groups += archived;
+            } while (archived == batchSize);
+            if (groups > 0) {
+                log.info("Archived {} payment groups due before {}", groups, before);
+            }
+            if (retentionMonths > 0) {
+                detachBefore(YearMonth.from(before).minusMonths(retentionMonths));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Payment archival failed, will retry on the next run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return number of groups archived, 0 if there are none or another instance holds the archive lock
+     */
+    int archiveBatch(LocalDate before) {
+        Set<YearMonth> created = new HashSet<>();
+        List<String> externalIds = new ArrayList<>();
+        List<Long> archived = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ARCHIVE_LOCK_ID);
+            if (!Boolean.TRUE.equals(locked)) {
+                return List.of();
+            }
+            Map<Long, LocalDate> groups = paymentArchiveRepository.lockArchivable(before, Math.max(1, batchSize));
+            if (groups.isEmpty()) {
+                return List.of();
+            }
+            groups.values().stream().map(YearMonth::from).distinct()
+                    .filter(month -> !partitions.contains(month))
+                    .forEach(month -> {
+                        paymentArchiveRepository.createPartitions(month);
+                        created.add(month);
+                    });
+            long[] ids = groups.keySet().stream().mapToLong(Long::longValue).toArray();
+            // Totals cover the hot tables only
+            paymentTotalsRepository.subtractGroups(ids);
+            int payments = paymentArchiveRepository.archivePayments(ids);
+            externalIds.addAll(paymentArchiveRepository.archiveGroups(ids));
+            endToEndIdIndex.removed(payments);
+            log.debug("Archived {} payment groups and {} payments", externalIds.size(), payments);
+            return List.copyOf(groups.keySet());
+        });
+        if (archived == null || archived.isEmpty()) {
+            return 0;
+        }
+        // Only after commit: a rolled back batch also rolled back the partitions it created
+        partitions.addAll(created);
+        paymentGroupCache.evict(archived);
+        externalIds.forEach(recentKeys::remove);
+        return archived.size();
+    }
+
+    private void detachBefore(YearMonth oldestKept) {
+        for (YearMonth month : paymentArchiveRepository.partitions()) {
+            if (month.isBefore(oldestKept)) {
+                paymentArchiveRepository.detachPartitions(month);
+                partitions.remove(month);
+                log.info("Detached archive partitions for {}", month);
+            }
+        }
+    }
+}
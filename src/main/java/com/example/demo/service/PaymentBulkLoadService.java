@@ -0,0 +1,379 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.BulkLoadResult;
+import com.example.demo.dto.ImportError;
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import com.example.demo.model.Payment;
+import com.example.demo.model.PaymentGroup;
+import com.example.demo.repository.PaymentTotalsRepository;
+import com.example.demo.repository.SequenceIdAllocator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads payment groups with PostgreSQL {@code COPY FROM STDIN} for migrations and backfills.
+ * <p>
+ * Each chunk is copied into transaction-scoped staging tables and then moved into
+ * {@code payment_groups}/{@code payments}. Groups whose {@code external_id} already exists are
+ * skipped by {@code ON CONFLICT DO NOTHING} and reported instead of failing the load. A group is
+ * loaded whole or not at all: one with an {@code end_to_end_identification} that is stored already
+ * or repeated in the file is removed from staging first and reported as rejected, like groups
+ * failing {@link PaymentValidator}, which are not copied at all.
+ * Ids come from the entity sequences, which keeps the {@code payment_group_id} foreign keys known
+ * before anything is written. No Kafka events are emitted.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentBulkLoadService {
+
+    static final int MAX_REPORTED_DUPLICATES = 1000;
+
+    private static final String CREATE_GROUP_STAGING =
+            "CREATE TEMP TABLE bulk_payment_groups (LIKE payment_groups INCLUDING DEFAULTS) ON COMMIT DROP";
+
+    private static final String CREATE_PAYMENT_STAGING =
+            "CREATE TEMP TABLE bulk_payments (LIKE payments INCLUDING DEFAULTS) ON COMMIT DROP";
+
+    private static final String COPY_GROUPS = """
+            COPY bulk_payment_groups (id, debtor_iban, debtor_name, requested_execution_date,
+                                      external_id, uname, tcif, country, source_system)
+            FROM STDIN WITH (FORMAT csv)""";
+
+    private static final String COPY_PAYMENTS = """
+            COPY bulk_payments (id, payment_group_id, end_to_end_identification, currency, amount,
+                                creditor_name, creditor_iban, remittance_information)
+            FROM STDIN WITH (FORMAT csv)""";
+
+    private static final String INSERT_GROUPS = """
+            INSERT INTO payment_groups (id, debtor_iban, debtor_name, requested_execution_date, created_at,
+                                        external_id, uname, tcif, country, source_system)
+            SELECT id, debtor_iban, debtor_name, requested_execution_date, created_at,
+                   external_id, uname, tcif, country, source_system
+            FROM bulk_payment_groups
+            ON CONFLICT (external_id) DO NOTHING""";
+
+    // Staged groups that will not be skipped for their external_id and have a payment whose end-to-end id
+    // is stored already or taken by an earlier payment of the chunk, with those ids
+    private static final String SELECT_CONFLICTING_GROUPS = """
+            WITH candidates AS (
+                SELECT DISTINCT ON (b.external_id) b.id FROM bulk_payment_groups b
+                WHERE NOT EXISTS (SELECT 1 FROM payment_groups g WHERE g.external_id = b.external_id)
+                ORDER BY b.external_id, b.id
+            ), staged AS (
+                SELECT p.id, p.payment_group_id, p.end_to_end_identification,
+                       row_number() OVER (PARTITION BY p.end_to_end_identification ORDER BY p.id) AS occurrence
+                FROM bulk_payments p JOIN candidates c ON c.id = p.payment_group_id
+            )
+            SELECT s.payment_group_id, array_agg(s.end_to_end_identification ORDER BY s.id)
+            FROM staged s
+            WHERE s.occurrence > 1
+               OR EXISTS (SELECT 1 FROM payments x WHERE x.end_to_end_identification = s.end_to_end_identification)
+            GROUP BY s.payment_group_id""";
+
+    private static final String DELETE_STAGED_PAYMENTS = "DELETE FROM bulk_payments WHERE payment_group_id = ANY(?::bigint[])";
+
+    private static final String DELETE_STAGED_GROUPS = "DELETE FROM bulk_payment_groups WHERE id = ANY(?::bigint[])";
+
+    // Joining on payment_groups drops the payments of groups skipped above. Conflicting end-to-end ids
+    // were removed from staging, so a concurrent writer taking one in the meantime fails the chunk
+    // rather than leaving a group without that payment.
+    private static final String INSERT_PAYMENTS = """
+            INSERT INTO payments (id, payment_group_id, end_to_end_identification, currency, amount,
+                                  creditor_name, creditor_iban, remittance_information)
+            SELECT p.id, p.payment_group_id, p.end_to_end_identification, p.currency, p.amount,
+                   p.creditor_name, p.creditor_iban, p.remittance_information
+            FROM bulk_payments p
+            JOIN payment_groups g ON g.id = p.payment_group_id""";
+
+    private static final String ADD_TOTALS = PaymentTotalsRepository.totalsOfGroups(1,
+            "g.id IN (SELECT id FROM bulk_payment_groups)");
+
+    private static final String SELECT_SKIPPED_GROUPS = """
+            SELECT b.external_id FROM bulk_payment_groups b
+            WHERE NOT EXISTS (SELECT 1 FROM payment_groups g WHERE g.id = b.id)
+            LIMIT ?""";
+
+    private final DataSource dataSource;
+    private final SequenceIdAllocator idAllocator;
+    private final ObjectMapper objectMapper;
+    private final PaymentValidator paymentValidator;
+    private final EndToEndIdIndex endToEndIdIndex;
+
+    @Value("${app.bulk-load.chunk-size:10000}")
+    private int chunkSize;
+
+    public BulkLoadResult load(InputStream in) throws IOException {
+        try (PaymentGroupRecordReader reader = new PaymentGroupRecordReader(objectMapper, in)) {
+            return load(reader);
+        }
+    }
+
+    public BulkLoadResult load(Iterator<PaymentGroupRecord> records) {
+        long started = System.nanoTime();
+        int groupsPerChunk = Math.max(1, chunkSize);
+        Tally tally = new Tally();
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                List<PaymentGroupRecord> chunk = new ArrayList<>(groupsPerChunk);
+                List<Long> indexes = new ArrayList<>(groupsPerChunk);
+                long index = 0;
+                while (records.hasNext()) {
+                    PaymentGroupRecord record = records.next();
+                    List<String> errors = paymentValidator.validate(record);
+                    if (!errors.isEmpty()) {
+                        tally.rejected(new ImportError(index++, record.externalId(), errors));
+                        continue;
+                    }
+                    indexes.add(index++);
+                    chunk.add(record);
+                    if (chunk.size() == groupsPerChunk) {
+                        loadChunk(connection, copyManager, chunk, indexes, tally);
+                        chunk = new ArrayList<>(groupsPerChunk);
+                        indexes = new ArrayList<>(groupsPerChunk);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    loadChunk(connection, copyManager, chunk, indexes, tally);
+                }
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw new RuntimeException("Bulk load failed after " + tally.groupsLoaded + " groups", e);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Bulk load failed", e);
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        double rowsPerSecond = (tally.groupsLoaded + tally.paymentsLoaded) * 1000.0 / elapsedMillis;
+        log.info("Bulk load finished: {} groups, {} payments in {} ms ({} rows/s), skipped {} groups and {} payments, rejected {} groups",
+                tally.groupsLoaded, tally.paymentsLoaded, elapsedMillis, Math.round(rowsPerSecond),
+                tally.groupsSkipped, tally.paymentsSkipped, tally.groupsRejected);
+
+        return new BulkLoadResult(tally.groupsLoaded, tally.paymentsLoaded, tally.groupsSkipped,
+                tally.paymentsSkipped, tally.skippedExternalIds, tally.duplicateEndToEndIds,
+                tally.groupsRejected, tally.rejected, elapsedMillis, rowsPerSecond);
+    }
+
+    /**
+     * Loads {@code chunk}, whose groups are at {@code indexes} of the input, and commits it.
+     */
+    private void loadChunk(Connection connection, CopyManager copyManager, List<PaymentGroupRecord> chunk,
+                           List<Long> indexes, Tally tally) throws SQLException, IOException {
+        int paymentCount = chunk.stream().mapToInt(record -> paymentsOf(record).size()).sum();
+        long[] groupIds = idAllocator.allocate(PaymentGroup.ID_SEQUENCE, PaymentGroup.ID_ALLOCATION_SIZE, chunk.size());
+        long[] paymentIds = idAllocator.allocate(Payment.ID_SEQUENCE, Payment.ID_ALLOCATION_SIZE, paymentCount);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_GROUP_STAGING);
+            statement.execute(CREATE_PAYMENT_STAGING);
+        }
+
+        try (Writer out = copyWriter(copyManager, COPY_GROUPS)) {
+            for (int i = 0; i < chunk.size(); i++) {
+                PaymentGroupRecord record = chunk.get(i);
+                writeRow(out, groupIds[i],
+                        record.debtorAccount() == null ? null : record.debtorAccount().iban(),
+                        record.debtorName(),
+                        record.requestedExecutionDate(),
+                        record.externalId(),
+                        record.uname(),
+                        record.tcif(),
+                        record.country(),
+                        record.sourceSystem());
+            }
+        }
+
+        try (Writer out = copyWriter(copyManager, COPY_PAYMENTS)) {
+            int p = 0;
+            for (int i = 0; i < chunk.size(); i++) {
+                for (PaymentRecord payment : paymentsOf(chunk.get(i))) {
+                    endToEndIdIndex.add(payment.endToEndIdentification());
+                    writeRow(out, paymentIds[p++], groupIds[i],
+                            payment.endToEndIdentification(),
+                            payment.instructedAmount() == null ? null : payment.instructedAmount().currency(),
+                            payment.instructedAmount() == null || payment.instructedAmount().amount() == null
+                                    ? null : payment.instructedAmount().amount().toPlainString(),
+                            payment.creditorName(),
+                            payment.creditorAccount() == null ? null : payment.creditorAccount().iban(),
+                            payment.remittanceInformationUnstructured());
+                }
+            }
+        }
+
+        List<ImportError> conflicts = new ArrayList<>();
+        int paymentsRejected = rejectConflicting(connection, chunk, indexes, groupIds, conflicts, tally.duplicateEndToEndIds);
+
+        int groupsLoaded;
+        int paymentsLoaded;
+        try (Statement statement = connection.createStatement()) {
+            groupsLoaded = statement.executeUpdate(INSERT_GROUPS);
+            paymentsLoaded = statement.executeUpdate(INSERT_PAYMENTS);
+            statement.executeUpdate(ADD_TOTALS);
+        }
+        if (groupsLoaded + conflicts.size() < chunk.size()) {
+            collect(connection, SELECT_SKIPPED_GROUPS, tally.skippedExternalIds);
+        }
+        connection.commit();
+
+        conflicts.forEach(tally::rejected);
+        tally.groupsLoaded += groupsLoaded;
+        tally.paymentsLoaded += paymentsLoaded;
+        tally.groupsSkipped += chunk.size() - conflicts.size() - groupsLoaded;
+        tally.paymentsSkipped += paymentCount - paymentsRejected - paymentsLoaded;
+        log.debug("Bulk loaded chunk: {}/{} groups, {}/{} payments",
+                groupsLoaded, chunk.size(), paymentsLoaded, paymentCount);
+    }
+
+    /**
+     * Removes the staged groups that share an end-to-end id with a stored payment or an earlier payment
+     * of the chunk, adding an error per group to {@code conflicts} and the ids to {@code duplicates}
+     * (up to {@code MAX_REPORTED_DUPLICATES}).
+     *
+     * @return number of staged payments removed with them
+     */
+    private static int rejectConflicting(Connection connection, List<PaymentGroupRecord> chunk, List<Long> indexes,
+                                         long[] groupIds, List<ImportError> conflicts, List<String> duplicates)
+            throws SQLException {
+        Map<Long, String[]> conflicting = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(SELECT_CONFLICTING_GROUPS)) {
+            while (rs.next()) {
+                conflicting.put(rs.getLong(1), (String[]) rs.getArray(2).getArray());
+            }
+        }
+        if (conflicting.isEmpty()) {
+            return 0;
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            String[] endToEndIds = conflicting.get(groupIds[i]);
+            if (endToEndIds == null) {
+                continue;
+            }
+            conflicts.add(new ImportError(indexes.get(i), chunk.get(i).externalId(), List.of(
+                    endToEndIds.length + " end-to-end ids already exist or are repeated: " + String.join(", ", endToEndIds))));
+            for (String endToEndId : endToEndIds) {
+                if (duplicates.size() < MAX_REPORTED_DUPLICATES) {
+                    duplicates.add(endToEndId);
+                }
+            }
+        }
+        Long[] ids = conflicting.keySet().toArray(Long[]::new);
+        int payments;
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_STAGED_PAYMENTS)) {
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            payments = statement.executeUpdate();
+        }
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_STAGED_GROUPS)) {
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            statement.executeUpdate();
+        }
+        return payments;
+    }
+
+    private static List<PaymentRecord> paymentsOf(PaymentGroupRecord record) {
+        return record.payments() == null ? List.of() : record.payments();
+    }
+
+    private static Writer copyWriter(CopyManager copyManager, String sql) throws SQLException {
+        return new BufferedWriter(new OutputStreamWriter(
+                new PGCopyOutputStream(copyManager.copyIn(sql)), StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    /**
+     * Appends the query's first column to {@code target}, up to {@code MAX_REPORTED_DUPLICATES} values.
+     */
+    private static void collect(Connection connection, String sql, List<String> target) throws SQLException {
+        int remaining = MAX_REPORTED_DUPLICATES - target.size();
+        if (remaining <= 0) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, remaining);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    target.add(rs.getString(1));
+                }
+            }
+        }
+    }
+
+    static void writeRow(Writer out, Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeField(out, fields[i]);
+        }
+        out.write('\n');
+    }
+
+    /**
+     * CSV-encodes one field: null is an unquoted empty field (SQL NULL), everything else is quoted
+     * so that an empty string stays distinguishable from NULL.
+     */
+    private static void writeField(Writer out, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        out.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static final class Tally {
+        private long groupsLoaded;
+        private long paymentsLoaded;
+        private long groupsSkipped;
+        private long paymentsSkipped;
+        private final List<String> skippedExternalIds = new ArrayList<>();
+        private final List<String> duplicateEndToEndIds = new ArrayList<>();
+        private long groupsRejected;
+        private final List<ImportError> rejected = new ArrayList<>();
+
+        void rejected(ImportError error) {
+            groupsRejected++;
+            if (rejected.size() < MAX_REPORTED_DUPLICATES) {
+                rejected.add(error);
+            }
+        }
+    }
+}
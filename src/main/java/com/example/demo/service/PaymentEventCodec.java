@@ -0,0 +1,327 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupDiff;
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import com.example.demo.model.CurrencyCode;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of payment events that needs no schema registry.
+ * <p>
+ * Layout: {@code MAGIC, version, type, fields...}. Lengths and integers are unsigned varints,
+ * strings are {@code length + 1} (0 for null) followed by UTF-8 bytes. The magic byte can never
+ * start a JSON document, so readers tell both formats apart without headers. Fields are only ever
+ * appended within a version and readers ignore trailing bytes; incompatible changes bump
+ * {@link #VERSION}.
+ * <p>
+ * Events come from the network, so every count and length is checked against the bytes left before
+ * anything is allocated: a corrupt or hostile record fails with {@link IllegalArgumentException}, which
+ * the listener's error handler treats like any other undecodable record.
+ */
+public final class PaymentEventCodec {
+
+    static final byte MAGIC = (byte) 0xFA;
+    static final byte VERSION = 1;
+
+    private static final byte TYPE_PAYMENT_GROUP = 1;
+    private static final byte TYPE_GROUP_ID = 2;
+    private static final byte TYPE_GROUP_DIFF = 3;
+
+    // Smallest encoding of a list element, every field null: six and seven one-byte fields
+    private static final int MIN_PAYMENT_BYTES = 6;
+    private static final int MIN_PAYMENT_DIFF_BYTES = 7;
+
+    private PaymentEventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data.length > 0 && data[0] == MAGIC;
+    }
+
+    /**
+     * @throws IllegalArgumentException for payload types without a binary encoding
+     */
+    public static byte[] encode(Object payload) {
+        Writer out = new Writer();
+        out.bytes.write(MAGIC);
+        out.bytes.write(VERSION);
+        if (payload instanceof PaymentGroupRecord group) {
+            out.bytes.write(TYPE_PAYMENT_GROUP);
+            writeGroup(out, group);
+        } else if (payload instanceof Long id) {
+            out.bytes.write(TYPE_GROUP_ID);
+            out.writeVarLong(id);
+        } else if (payload instanceof PaymentGroupDiff diff) {
+            out.bytes.write(TYPE_GROUP_DIFF);
+            writeDiff(out, diff);
+        } else {
+            throw new IllegalArgumentException("No binary encoding for " + payload.getClass().getName());
+        }
+        return out.bytes.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code data} is not a supported binary event
+     */
+    public static Object decode(byte[] data) {
+        if (!isBinary(data) || data.length < 3) {
+            throw new IllegalArgumentException("Not a binary payment event");
+        }
+        if (data[1] > VERSION) {
+            throw new IllegalArgumentException("Unsupported binary event version: " + data[1]);
+        }
+        Reader in = new Reader(data, 3);
+        try {
+            return switch (data[2]) {
+                case TYPE_PAYMENT_GROUP -> readGroup(in);
+                case TYPE_GROUP_ID -> in.readVarLong();
+                case TYPE_GROUP_DIFF -> readDiff(in);
+                default -> throw new IllegalArgumentException("Unknown binary event type: " + data[2]);
+            };
+        } catch (IndexOutOfBoundsException | NumberFormatException | DateTimeException e) {
+            throw new IllegalArgumentException("Malformed binary payment event", e);
+        }
+    }
+
+    private static void writeGroup(Writer out, PaymentGroupRecord group) {
+        out.writeString(group.debtorAccount() == null ? null : group.debtorAccount().iban());
+        out.writeString(group.debtorName());
+        out.writeDate(group.requestedExecutionDate());
+        out.writeString(group.externalId());
+        out.writeString(group.uname());
+        out.writeString(group.tcif());
+        out.writeString(group.country());
+        out.writeString(group.sourceSystem());
+        List<PaymentRecord> payments = group.payments() == null ? List.of() : group.payments();
+        out.writeVarLong(payments.size());
+        for (PaymentRecord payment : payments) {
+            out.writeString(payment.endToEndIdentification());
+            out.writeString(payment.instructedAmount() == null ? null : payment.instructedAmount().currency());
+            out.writeDecimal(payment.instructedAmount() == null ? null : payment.instructedAmount().amount());
+            out.writeString(payment.creditorName());
+            out.writeString(payment.creditorAccount() == null ? null : payment.creditorAccount().iban());
+            out.writeString(payment.remittanceInformationUnstructured());
+        }
+    }
+
+    private static PaymentGroupRecord readGroup(Reader in) {
+        String debtorIban = in.readString();
+        String debtorName = in.readString();
+        LocalDate requestedExecutionDate = in.readDate();
+        String externalId = in.readString();
+        String uname = in.readString();
+        String tcif = in.readString();
+        String country = in.readString();
+        String sourceSystem = in.readString();
+        int count = in.readCount(MIN_PAYMENT_BYTES);
+        List<PaymentRecord> payments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String endToEndId = in.readString();
+            String currency = in.readCurrency();
+            BigDecimal amount = in.readDecimal();
+            String creditorName = in.readString();
+            String creditorIban = in.readString();
+            String remittance = in.readString();
+            payments.add(new PaymentRecord(endToEndId, new PaymentRecord.InstructedAmount(currency, amount),
+                    creditorName, new PaymentRecord.CreditorAccount(creditorIban), remittance));
+        }
+        return new PaymentGroupRecord(new PaymentGroupRecord.DebtorAccount(debtorIban), debtorName,
+                requestedExecutionDate, payments, externalId, uname, tcif, country, sourceSystem);
+    }
+
+    // Unchanged fields are null and cost one byte each
+    private static void writeDiff(Writer out, PaymentGroupDiff diff) {
+        out.writeOptionalLong(diff.id());
+        out.writeString(diff.externalId());
+        out.writeOptionalLong(diff.version());
+        out.writeString(diff.debtorIban());
+        out.writeString(diff.debtorName());
+        out.writeDate(diff.requestedExecutionDate());
+        List<PaymentGroupDiff.PaymentDiff> payments = diff.payments() == null ? List.of() : diff.payments();
+        out.writeVarLong(payments.size());
+        for (PaymentGroupDiff.PaymentDiff payment : payments) {
+            out.writeString(payment.endToEndIdentification());
+            out.writeOptionalLong(payment.version());
+            out.writeString(payment.currency());
+            out.writeDecimal(payment.amount());
+            out.writeString(payment.creditorName());
+            out.writeString(payment.creditorIban());
+            out.writeString(payment.remittanceInformation());
+        }
+    }
+
+    private static PaymentGroupDiff readDiff(Reader in) {
+        Long id = in.readOptionalLong();
+        String externalId = in.readString();
+        Long version = in.readOptionalLong();
+        String debtorIban = in.readString();
+        String debtorName = in.readString();
+        LocalDate requestedExecutionDate = in.readDate();
+        int count = in.readCount(MIN_PAYMENT_DIFF_BYTES);
+        List<PaymentGroupDiff.PaymentDiff> payments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            payments.add(new PaymentGroupDiff.PaymentDiff(in.readString(), in.readOptionalLong(), in.readCurrency(),
+                    in.readDecimal(), in.readString(), in.readString(), in.readString()));
+        }
+        return new PaymentGroupDiff(id, externalId, version, debtorIban, debtorName, requestedExecutionDate, payments);
+    }
+
+    private static final class Writer {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                bytes.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            bytes.write((int) value);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            bytes.write(utf8, 0, utf8.length);
+        }
+
+        // Non-negative values only: value + 1, 0 for null
+        void writeOptionalLong(Long value) {
+            writeVarLong(value == null ? 0 : value + 1);
+        }
+
+        // Epoch day + 1, 0 for null
+        void writeDate(LocalDate value) {
+            writeVarLong(value == null ? 0 : zigZag(value.toEpochDay()) + 1);
+        }
+
+        // Scale + 1 (0 for null), then the two's-complement unscaled value as a length-prefixed byte string
+        void writeDecimal(BigDecimal value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            writeVarLong(zigZag(value.scale()) + 1);
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            writeVarLong(unscaled.length);
+            bytes.write(unscaled, 0, unscaled.length);
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in binary payment event");
+        }
+
+        // Number of list elements, each taking at least minBytes of what is left
+        int readCount(int minBytes) {
+            long count = readVarLong();
+            if (count < 0 || count > remaining() / minBytes) {
+                throw new IllegalArgumentException("List of " + Long.toUnsignedString(count)
+                        + " elements exceeds the binary payment event");
+            }
+            return (int) count;
+        }
+
+        // Length + 1 as written by writeString, -1 for null
+        int readNullableLength() {
+            long encoded = readVarLong();
+            return encoded == 0 ? -1 : checkLength(encoded - 1);
+        }
+
+        int checkLength(long length) {
+            if (length < 0 || length > remaining()) {
+                throw new IllegalArgumentException("Field of " + Long.toUnsignedString(length)
+                        + " bytes exceeds the binary payment event");
+            }
+            return (int) length;
+        }
+
+        private int remaining() {
+            return data.length - position;
+        }
+
+        String readString() {
+            int length = readNullableLength();
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        // Known currencies resolve to the interned code instead of a new string per payment
+        String readCurrency() {
+            int length = readNullableLength();
+            if (length < 0) {
+                return null;
+            }
+            CurrencyCode currency = CurrencyCode.of(data, position, length);
+            String value = currency != null ? currency.code() : new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        Long readOptionalLong() {
+            long encoded = readVarLong();
+            return encoded == 0 ? null : encoded - 1;
+        }
+
+        LocalDate readDate() {
+            long encoded = readVarLong();
+            return encoded == 0 ? null : LocalDate.ofEpochDay(unZigZag(encoded - 1));
+        }
+
+        BigDecimal readDecimal() {
+            long scale = readVarLong();
+            if (scale == 0) {
+                return null;
+            }
+            long decodedScale = unZigZag(scale - 1);
+            if (decodedScale != (int) decodedScale) {
+                throw new IllegalArgumentException("Decimal scale out of range in binary payment event");
+            }
+            int length = checkLength(readVarLong());
+            byte[] unscaled = new byte[length];
+            System.arraycopy(data, position, unscaled, 0, length);
+            position += length;
+            return new BigDecimal(new BigInteger(unscaled), (int) decodedScale);
+        }
+
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
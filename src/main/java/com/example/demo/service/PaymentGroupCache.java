@@ -0,0 +1,52 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Programmatic access to the {@value #NAME} cache filled by {@link PaymentService#getGroupView}, for
+ * evictions that cannot be expressed with {@code @CacheEvict}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentGroupCache {
+
+    public static final String NAME = "paymentGroups";
+
+    private final CacheManager cacheManager;
+
+    public void evict(Collection<Long> ids) {
+        Cache cache = cacheManager.getCache(NAME);
+        if (cache != null) {
+            ids.forEach(cache::evict);
+        }
+    }
+
+    /**
+     * Evicts the group with the given external_id; events carry it as record key. Scans the cache,
+     * which is bounded in size, since entries are keyed by id.
+     */
+    public void evictByExternalId(String externalId) {
+        if (externalId == null) {
+            return;
+        }
+        if (cacheManager.getCache(NAME) instanceof CaffeineCache cache) {
+            cache.getNativeCache().asMap().values().removeIf(value ->
+                    value instanceof PaymentGroupView view && externalId.equals(view.externalId()));
+        } else {
+            log.warn("Cache {} does not support eviction by external_id; clearing it", NAME);
+            Cache cache = cacheManager.getCache(NAME);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Keeps the group cache of this instance consistent with changes made by any instance. Listens in a
+ * consumer group of its own (one per instance) starting at the latest offset, since a freshly
+ * started instance has nothing cached yet.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentGroupCacheInvalidator {
+
+    private final PaymentGroupCache paymentGroupCache;
+
+    @KafkaListener(topics = "${app.kafka.topics.future-payment.deleted}",
+            groupId = "${app.cache.invalidation.group-id}",
+            properties = "auto.offset.reset=latest")
+    public void onDeleted(Long id) {
+        log.debug("Evicting deleted payment group from cache: {}", id);
+        paymentGroupCache.evict(List.of(id));
+    }
+
+    // Only the record key (external_id) is needed, so the payload is not converted
+    @KafkaListener(topics = "${app.kafka.topics.future-payment.modified}",
+            groupId = "${app.cache.invalidation.group-id}",
+            properties = "auto.offset.reset=latest")
+    public void onModified(ConsumerRecord<String, byte[]> record) {
+        log.debug("Evicting modified payment group from cache, external_id: {}", record.key());
+        paymentGroupCache.evictByExternalId(record.key());
+    }
+}
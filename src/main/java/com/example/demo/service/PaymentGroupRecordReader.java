@@ -0,0 +1,111 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupRecord;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a JSON array of {@link PaymentGroupRecord}s one element at a time, so only the
+ * current group is held in memory regardless of the size of the input.
+ * <p>
+ * Anything but a complete array of objects fails with an {@link IllegalArgumentException} (or an
+ * {@link UncheckedIOException} for malformed JSON) instead of ending the iteration, so a truncated
+ * upload cannot pass for a complete one.
+ */
+public class PaymentGroupRecordReader implements Iterator<PaymentGroupRecord>, Closeable {
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private JsonToken current;
+
+    public PaymentGroupRecordReader(ObjectMapper objectMapper, InputStream in) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createParser(in);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Expected a JSON array of payment groups");
+        }
+        advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current == JsonToken.START_OBJECT) {
+            return true;
+        }
+        if (current == JsonToken.END_ARRAY) {
+            return false;
+        }
+        if (current == null) {
+            throw new IllegalArgumentException("Unexpected end of input: the array of payment groups is not closed");
+        }
+        throw new IllegalArgumentException("Expected a payment group object but found " + current
+                + " at line " + parser.currentLocation().getLineNr() + ", column " + parser.currentLocation().getColumnNr());
+    }
+
+    private void advance() throws IOException {
+        current = parser.nextToken();
+        if (current == JsonToken.END_ARRAY && parser.nextToken() != null) {
+            throw new IllegalArgumentException("Unexpected content after the array of payment groups");
+        }
+    }
+
+    @Override
+    public PaymentGroupRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            PaymentGroupRecord record = objectMapper.readValue(parser, PaymentGroupRecord.class);
+            advance();
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the next group as a tree without binding it, so binding errors can be reported per group
+     * by whoever converts it (see {@link PaymentStreamImportService}).
+     */
+    public JsonNode nextTree() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            JsonNode tree = objectMapper.readTree(parser);
+            advance();
+            return tree;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Skips the next group without building it, e.g. to count the groups or to resume after a checkpoint.
+     */
+    public void skip() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            parser.skipChildren();
+            advance();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
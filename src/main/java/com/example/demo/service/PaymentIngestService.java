@@ -0,0 +1,166 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import com.example.demo.model.Payment;
+import com.example.demo.model.PaymentGroup;
+import com.example.demo.repository.PaymentDeleteRepository;
+import com.example.demo.repository.PaymentTotalsRepository;
+import com.example.demo.repository.PaymentUpsertRepository;
+import com.example.demo.repository.SequenceIdAllocator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Idempotent write path for payment groups received from Kafka. A redelivered group is recognised
+ * by its external_id, first in {@link RecentKeyCache} and then by {@code ON CONFLICT DO NOTHING},
+ * so it neither fails the transaction nor re-emits a payment.created event. A group failing
+ * {@link PaymentValidator}, or a new group with an end-to-end id that another payment already has,
+ * is logged, counted and dropped: redelivering it cannot make it valid.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentIngestService {
+
+    private static final String SOURCE_KAFKA = "kafka";
+
+    private final PaymentUpsertRepository paymentUpsertRepository;
+    private final PaymentDeleteRepository paymentDeleteRepository;
+    private final PaymentValidator paymentValidator;
+    private final PaymentTotalsRepository paymentTotalsRepository;
+    private final EndToEndIdIndex endToEndIdIndex;
+    private final SequenceIdAllocator idAllocator;
+    private final RecentKeyCache recentKeys;
+    private final PaymentMetrics paymentMetrics;
+
+    /**
+     * @return {@code true} if the group was new and has been stored, {@code false} for a duplicate
+     */
+    @Transactional
+    public boolean ingest(PaymentGroupRecord record) {
+        return ingestAll(List.of(record)) == 1;
+    }
+
+    /**
+     * Stores all new groups of {@code records} with one statement for groups and one for payments.
+     *
+     * @return number of groups stored; duplicates (also within {@code records}) are skipped
+     */
+    @Transactional
+    public int ingestAll(List<PaymentGroupRecord> records) {
+        Map<String, PaymentGroupRecord> candidates = new LinkedHashMap<>();
+        for (PaymentGroupRecord record : records) {
+            if (recentKeys.contains(record.externalId())) {
+                log.debug("Skipping recently ingested payment group with external_id: {}", record.externalId());
+                continue;
+            }
+            List<String> errors = paymentValidator.validate(record);
+            if (!errors.isEmpty()) {
+                log.warn("Rejected payment group with external_id: {}: {}", record.externalId(), errors);
+                paymentMetrics.recordRejected(SOURCE_KAFKA);
+                continue;
+            }
+            candidates.putIfAbsent(record.externalId(), record);
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        List<PaymentGroupRecord> groups = new ArrayList<>(candidates.values());
+        long[] groupIds = idAllocator.nextIds(PaymentGroup.ID_SEQUENCE, PaymentGroup.ID_ALLOCATION_SIZE, groups.size());
+        Set<Long> inserted = new HashSet<>(paymentUpsertRepository.insertGroupsIfAbsent(groupIds, groups));
+        if (inserted.size() < groups.size()) {
+            log.info("Skipped {} payment groups that already exist", groups.size() - inserted.size());
+        }
+
+        List<PaymentRecord> payments = new ArrayList<>();
+        List<Long> paymentGroupIds = new ArrayList<>();
+        Map<Long, String> externalIds = new HashMap<>();
+        for (int i = 0; i < groups.size(); i++) {
+            if (inserted.contains(groupIds[i]) && groups.get(i).payments() != null) {
+                externalIds.put(groupIds[i], groups.get(i).externalId());
+                for (PaymentRecord payment : groups.get(i).payments()) {
+                    payments.add(payment);
+                    paymentGroupIds.add(groupIds[i]);
+                }
+            }
+        }
+        Set<String> keys = new HashSet<>(candidates.keySet());
+        List<PaymentRecord> stored = payments;
+        if (!payments.isEmpty()) {
+            long[] paymentIds = idAllocator.nextIds(Payment.ID_SEQUENCE, Payment.ID_ALLOCATION_SIZE, payments.size());
+            Set<Long> storedIds = new HashSet<>(paymentUpsertRepository.insertPaymentsIfAbsent(
+                    paymentIds, paymentGroupIds.stream().mapToLong(Long::longValue).toArray(), payments));
+            if (storedIds.size() < payments.size()) {
+                Map<Long, List<String>> conflicts = new LinkedHashMap<>();
+                for (int i = 0; i < payments.size(); i++) {
+                    if (!storedIds.contains(paymentIds[i])) {
+                        conflicts.computeIfAbsent(paymentGroupIds.get(i), id -> new ArrayList<>())
+                                .add(payments.get(i).endToEndIdentification());
+                    }
+                }
+                reject(conflicts, externalIds);
+                inserted.removeAll(conflicts.keySet());
+                conflicts.keySet().forEach(id -> keys.remove(externalIds.get(id)));
+                stored = new ArrayList<>(payments.size());
+                for (int i = 0; i < payments.size(); i++) {
+                    if (inserted.contains(paymentGroupIds.get(i))) {
+                        stored.add(payments.get(i));
+                    }
+                }
+            }
+            stored.forEach(payment -> endToEndIdIndex.add(payment.endToEndIdentification()));
+            if (!stored.isEmpty()) {
+                paymentTotalsRepository.addGroups(inserted.stream().mapToLong(Long::longValue).toArray());
+            }
+        }
+
+        afterCommit(keys, stored);
+        return inserted.size();
+    }
+
+    /**
+     * Removes new groups of which some payments were skipped because their end-to-end id belongs to
+     * another payment: a group is stored whole or not at all. Like an invalid group, such a group is
+     * dropped rather than retried, since redelivering it fails the same way.
+     */
+    private void reject(Map<Long, List<String>> conflicts, Map<Long, String> externalIds) {
+        long[] ids = conflicts.keySet().stream().mapToLong(Long::longValue).toArray();
+        paymentDeleteRepository.deletePayments(ids);
+        paymentDeleteRepository.deleteGroups(ids);
+        conflicts.forEach((id, endToEndIds) -> {
+            log.warn("Rejected payment group with external_id: {}: end-to-end ids already exist or are repeated: {}",
+                    externalIds.get(id), endToEndIds);
+            paymentMetrics.recordRejected(SOURCE_KAFKA);
+        });
+    }
+
+    // Only committed keys may short-circuit later deliveries; a rolled back insert must be retried
+    private void afterCommit(Set<String> externalIds, List<PaymentRecord> payments) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    externalIds.forEach(recentKeys::add);
+                    paymentMetrics.recordPayments(payments);
+                }
+            });
+        } else {
+            externalIds.forEach(recentKeys::add);
+            paymentMetrics.recordPayments(payments);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentRecord;
+import com.example.demo.model.CurrencyCode;
+import com.example.demo.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hot-path meters of the payment pipeline. All names start with {@code payments.}, which is what
+ * the histogram, percentile and SLO settings in application.properties match on.
+ * <p>
+ * Methods take raw nanosecond durations, so callers only need {@link System#nanoTime()}.
+ * The per-currency meters are registered once per {@link CurrencyCode} and then looked up by its
+ * ordinal, so recording a payment allocates nothing.
+ */
+@Component
+public class PaymentMetrics {
+
+    public static final String MODE_RECORD = "record";
+    public static final String MODE_BATCH = "batch";
+
+    private final MeterRegistry registry;
+
+    private final Timer importTimer;
+    private final Timer importRolledBackTimer;
+    private final Timer importPerGroupTimer;
+    private final Timer importPerPaymentTimer;
+    private final Timer saveTimer;
+    private final Timer outboxAckTimer;
+    private final Timer outboxDelayTimer;
+    private final DistributionSummary outboxBatchSize;
+    private final AtomicReferenceArray<CurrencyMeters> currencyMeters = new AtomicReferenceArray<>(CurrencyCode.count());
+
+    public PaymentMetrics(MeterRegistry registry, OutboxEventRepository outboxEventRepository) {
+        this.registry = registry;
+        this.importTimer = importTimer(registry, "committed");
+        this.importRolledBackTimer = importTimer(registry, "rolled_back");
+        this.importPerGroupTimer = Timer.builder("payments.import.group")
+                .description("Import time per payment group (amortized over each import call)")
+                .register(registry);
+        this.importPerPaymentTimer = Timer.builder("payments.import.payment")
+                .description("Import time per payment (amortized over each import call)")
+                .register(registry);
+        this.saveTimer = Timer.builder("payments.db.save")
+                .description("saveAll and flush of one import chunk")
+                .register(registry);
+        this.outboxAckTimer = Timer.builder("payments.outbox.send")
+                .description("Time from handing an event to the producer until the broker acknowledged it")
+                .register(registry);
+        this.outboxDelayTimer = Timer.builder("payments.outbox.delay")
+                .description("Time from writing an event to the outbox until it was published")
+                .register(registry);
+        this.outboxBatchSize = DistributionSummary.builder("payments.outbox.batch")
+                .description("Events published per relay batch")
+                .register(registry);
+        Gauge.builder("payments.outbox.pending", outboxEventRepository, OutboxEventRepository::count)
+                .description("Events waiting in the outbox")
+                .register(registry);
+    }
+
+    private static Timer importTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("payments.import")
+                .description("PaymentService.importPayments including commit")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    public void recordImport(long nanos, int groups, int payments, boolean committed) {
+        (committed ? importTimer : importRolledBackTimer).record(nanos, TimeUnit.NANOSECONDS);
+        if (committed && groups > 0) {
+            importPerGroupTimer.record(nanos / groups, TimeUnit.NANOSECONDS);
+        }
+        if (committed && payments > 0) {
+            importPerPaymentTimer.record(nanos / payments, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void recordSave(long nanos) {
+        saveTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts payments and their amounts per currency.
+     */
+    public void recordPayments(Collection<PaymentRecord> payments) {
+        for (PaymentRecord payment : payments) {
+            PaymentRecord.InstructedAmount amount = payment.instructedAmount();
+            recordPayment(amount == null ? null : amount.currency(), amount == null ? null : amount.amount());
+        }
+    }
+
+    public void recordPayment(String currency, BigDecimal amount) {
+        CurrencyCode code = CurrencyCode.of(currency);
+        if (code == null) {
+            // Not stored by the validated paths; registered per call as it should never be hot
+            CurrencyMeters meters = currencyMeters(currency == null ? "unknown" : currency);
+            meters.stored().increment();
+            if (amount != null) {
+                meters.amount().record(amount.doubleValue());
+            }
+            return;
+        }
+        CurrencyMeters meters = currencyMeters.get(code.ordinal());
+        if (meters == null) {
+            meters = currencyMeters(code.code());
+            // Registering twice returns the same meters, so a lost race is harmless
+            currencyMeters.set(code.ordinal(), meters);
+        }
+        meters.stored().increment();
+        if (amount != null) {
+            meters.amount().record(amount.doubleValue());
+        }
+    }
+
+    private CurrencyMeters currencyMeters(String tag) {
+        return new CurrencyMeters(
+                Counter.builder("payments.stored")
+                        .description("Payments stored")
+                        .tag("currency", tag)
+                        .register(registry),
+                DistributionSummary.builder("payments.amount")
+                        .description("Instructed amount of stored payments")
+                        .tag("currency", tag)
+                        .register(registry));
+    }
+
+    public void recordRejected(String source) {
+        Counter.builder("payments.rejected")
+                .description("Payment groups rejected by validation")
+                .tag("source", source)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordEmitted(String topic, int count) {
+        Counter.builder("payments.events.emitted")
+                .description("Events written to the outbox")
+                .tag("topic", topic)
+                .register(registry)
+                .increment(count);
+    }
+
+    public void recordOutboxAck(long nanos) {
+        outboxAckTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordOutboxBatch(int size, Instant oldestCreatedAt) {
+        outboxBatchSize.record(size);
+        if (oldestCreatedAt != null) {
+            outboxDelayTimer.record(Duration.between(oldestCreatedAt, Instant.now()));
+        }
+    }
+
+    /**
+     * Processing time of one listener invocation and the age of the consumed records, i.e. the time
+     * from producing them until this instance picked them up.
+     */
+    public void recordConsumed(String topic, String mode, long nanos, Collection<Long> recordTimestamps) {
+        Timer.builder("payments.consumer.process")
+                .description("Listener processing time per invocation")
+                .tag("topic", topic)
+                .tag("mode", mode)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Timer age = Timer.builder("payments.consumer.lag")
+                .description("Time between producing a record and consuming it")
+                .tag("topic", topic)
+                .register(registry);
+        long now = System.currentTimeMillis();
+        for (Long timestamp : recordTimestamps) {
+            if (timestamp != null && timestamp > 0) {
+                age.record(Math.max(0, now - timestamp), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private record CurrencyMeters(Counter stored, DistributionSummary amount) {
+    }
+}
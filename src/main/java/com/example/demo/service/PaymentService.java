@@ -1,45 +1,195 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.BulkDeleteResult;
+import com.example.demo.dto.PaymentGroupDiff;
+import com.example.demo.dto.PaymentGroupDiff.PaymentDiff;
+import com.example.demo.dto.PaymentGroupPatch;
+import com.example.demo.dto.PaymentGroupPatch.PaymentPatch;
+import com.example.demo.dto.PaymentGroupPage;
 import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentGroupSearch;
+import com.example.demo.dto.PaymentGroupView;
 import com.example.demo.dto.PaymentRecord;
+import com.example.demo.dto.PaymentTotal;
 import com.example.demo.model.Payment;
 import com.example.demo.model.PaymentGroup;
+import com.example.demo.repository.PaymentDeleteRepository;
 import com.example.demo.repository.PaymentGroupRepository;
+import com.example.demo.repository.PaymentGroupSearchRepository;
 import com.example.demo.repository.PaymentRepository;
+import com.example.demo.repository.PaymentTotalsRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentService {
 
+    // Named by PostgreSQL for the unique column of 01-create-tables
+    private static final String END_TO_END_ID_CONSTRAINT = "payments_end_to_end_identification_key";
+
+    // Detail of a unique violation on it: Key (end_to_end_identification)=(E2E-1) already exists.
+    private static final Pattern DUPLICATE_END_TO_END_ID =
+            Pattern.compile("Key \\(end_to_end_identification\\)=\\((.*)\\) already exists");
+
     private final PaymentGroupRepository paymentGroupRepository;
     private final PaymentRepository paymentRepository;
     private final KafkaProducerService kafkaProducerService;
+    private final EntityManager entityManager;
+    private final PaymentGroupCache paymentGroupCache;
+    private final PaymentMetrics paymentMetrics;
+    private final PaymentDeleteRepository paymentDeleteRepository;
+    private final PaymentGroupSearchRepository paymentGroupSearchRepository;
+    private final PaymentTotalsRepository paymentTotalsRepository;
+    private final EndToEndIdIndex endToEndIdIndex;
+    private final RecentKeyCache recentKeys;
+
+    // Groups persisted per flush; also drives hibernate.jdbc.batch_size
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.api.max-page-size:500}")
+    private int maxPageSize;
 
     @Transactional
     public List<PaymentGroup> importPayments(List<PaymentGroupRecord> groupRecords) {
-        log.info("Starting import of {} payment group records", groupRecords.size());
-        
+        log.debug("Starting import of {} payment group records", groupRecords.size());
+        long started = System.nanoTime();
         List<PaymentGroup> groups = groupRecords.stream()
-                .map(this::convertToEntity)
-                .map(paymentGroupRepository::save)
+                .map(PaymentService::convertToEntity)
                 .collect(Collectors.toList());
-        
-        log.info("Saved {} payment groups to database", groups.size());
-        groups.forEach(kafkaProducerService::emitCreated);
-        log.info("Emitted Kafka events for {} payment groups", groups.size());
-        
+        return save(groups, started);
+    }
+
+    /**
+     * Persists groups that were mapped beforehand, as {@link PaymentStreamImportService} does on its
+     * worker threads, and emits their payment.created events.
+     */
+    @Transactional
+    public List<PaymentGroup> importGroups(List<PaymentGroup> groups) {
+        log.debug("Starting import of {} mapped payment groups", groups.size());
+        return save(groups, System.nanoTime());
+    }
+
+    /**
+     * @throws DuplicateEndToEndIdException if an end-to-end id is already stored or repeated in {@code mapped}:
+     *                                      before writing anything, or when the insert hits the unique constraint
+     *                                      because another instance stored the id after the index last saw it
+     */
+    private List<PaymentGroup> save(List<PaymentGroup> mapped, long started) {
+        Set<String> duplicates = endToEndIdIndex.findDuplicates(mapped.stream()
+                .filter(group -> group.getPayments() != null)
+                .flatMap(group -> group.getPayments().stream())
+                .map(Payment::getEndToEndIdentification)
+                .toList());
+        if (!duplicates.isEmpty()) {
+            log.info("Rejected import of {} payment groups with {} duplicate end-to-end ids", mapped.size(), duplicates.size());
+            throw new DuplicateEndToEndIdException(duplicates);
+        }
+
+        int chunkSize = Math.max(1, batchSize);
+        List<PaymentGroup> groups = new ArrayList<>(mapped.size());
+        for (int from = 0; from < mapped.size(); from += chunkSize) {
+            List<PaymentGroup> chunk = mapped.subList(from, Math.min(from + chunkSize, mapped.size()));
+            long saveStarted = System.nanoTime();
+            List<PaymentGroup> saved;
+            try {
+                saved = paymentGroupRepository.saveAll(chunk);
+                // Flush per chunk so inserts go out as JDBC batches instead of one statement per row
+                paymentGroupRepository.flush();
+            } catch (DataIntegrityViolationException e) {
+                throw duplicateEndToEndIdOr(e);
+            }
+            paymentTotalsRepository.addGroups(saved.stream().mapToLong(PaymentGroup::getId).toArray());
+            saved.stream()
+                    .filter(group -> group.getPayments() != null)
+                    .forEach(group -> group.getPayments().forEach(payment -> endToEndIdIndex.add(payment.getEndToEndIdentification())));
+            groups.addAll(saved);
+            paymentMetrics.recordSave(System.nanoTime() - saveStarted);
+        }
+
+        log.debug("Saved {} payment groups to database", groups.size());
+        groups.forEach(group -> kafkaProducerService.emitCreated(group.getExternalId(), PaymentGroupRecord.from(group)));
+        log.debug("Emitted Kafka events for {} payment groups", groups.size());
+
+        recordImportOnCompletion(started, groups);
         return groups;
     }
 
-    private PaymentGroup convertToEntity(PaymentGroupRecord record) {
+    // The index of this instance can miss ids stored by others; their duplicates surface as the unique violation
+    private static RuntimeException duplicateEndToEndIdOr(DataIntegrityViolationException e) {
+        if (e.getCause() instanceof ConstraintViolationException violation
+                && END_TO_END_ID_CONSTRAINT.equals(violation.getConstraintName())
+                && NestedExceptionUtils.getMostSpecificCause(e) instanceof PSQLException cause) {
+            ServerErrorMessage message = cause.getServerErrorMessage();
+            String detail = message == null ? null : message.getDetail();
+            Matcher matcher = DUPLICATE_END_TO_END_ID.matcher(detail == null ? "" : detail);
+            if (matcher.find()) {
+                log.info("Rejected import with end-to-end id {} stored meanwhile", matcher.group(1));
+                return new DuplicateEndToEndIdException(Set.of(matcher.group(1)));
+            }
+        }
+        return e;
+    }
+
+    // The outbox rows are flushed at commit, so the import timer only stops once the transaction has completed
+    private void recordImportOnCompletion(long started, List<PaymentGroup> groups) {
+        List<Payment> payments = groups.stream()
+                .filter(group -> group.getPayments() != null)
+                .flatMap(group -> group.getPayments().stream())
+                .toList();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            paymentMetrics.recordImport(System.nanoTime() - started, groups.size(), payments.size(), true);
+            payments.forEach(payment -> paymentMetrics.recordPayment(payment.getCurrency(), payment.getAmount()));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                paymentMetrics.recordImport(System.nanoTime() - started, groups.size(), payments.size(), committed);
+                if (committed) {
+                    payments.forEach(payment -> paymentMetrics.recordPayment(payment.getCurrency(), payment.getAmount()));
+                }
+            }
+        });
+    }
+
+    // Stateless, so the streaming import can map on its worker threads; package-private for the benchmarks
+    static PaymentGroup convertToEntity(PaymentGroupRecord record) {
         log.debug("Converting payment group record for debtor: {} with external_id: {}", 
                 record.debtorName(), record.externalId());
         
@@ -63,7 +213,7 @@ public class PaymentService {
         return group;
     }
 
-    private Payment convertToEntity(PaymentRecord record, PaymentGroup group) {
+    private static Payment convertToEntity(PaymentRecord record, PaymentGroup group) {
         return Payment.builder()
                 .paymentGroup(group)
                 .endToEndIdentification(record.endToEndIdentification())
@@ -75,15 +225,97 @@ public class PaymentService {
                 .build();
     }
 
-    public List<PaymentGroup> getAllGroups() {
-        log.info("Fetching all payment groups from database");
-        List<PaymentGroup> groups = paymentGroupRepository.findAll();
-        log.info("Found {} payment groups", groups.size());
+    @Transactional(readOnly = true)
+    public List<PaymentGroupView> getAllGroups() {
+        log.debug("Fetching all payment groups from database");
+        List<PaymentGroupView> groups = paymentGroupRepository.findAllWithPayments().stream()
+                .map(PaymentGroupView::from)
+                .collect(Collectors.toList());
+        log.debug("Found {} payment groups", groups.size());
         return groups;
     }
 
+    @Transactional(readOnly = true)
+    public PaymentGroupPage getGroupsPage(Long after, int limit) {
+        int pageSize = Math.min(Math.max(1, limit), maxPageSize);
+        log.debug("Fetching page of up to {} payment groups after id: {}", pageSize, after);
+        List<Long> ids = paymentGroupRepository.findIdsAfter(after == null ? 0L : after, Limit.of(pageSize));
+        return page(ids, pageSize);
+    }
+
+    /**
+     * Keyset page of the groups matching {@code search}, ordered by id, e.g. all groups due on one
+     * date for a country and source system.
+     */
+    @Transactional(readOnly = true)
+    public PaymentGroupPage searchGroups(PaymentGroupSearch search, Long after, int limit) {
+        int pageSize = Math.min(Math.max(1, limit), maxPageSize);
+        log.debug("Searching payment groups {} after id: {}, limit: {}", search, after, pageSize);
+        List<Long> ids = paymentGroupSearchRepository.findIds(search, after == null ? 0L : after, pageSize);
+        return page(ids, pageSize);
+    }
+
+    /**
+     * Payment count and amount per debtor IBAN, currency and execution date, read from the
+     * incrementally maintained {@code payment_totals}; null filters match everything.
+     */
+    @Transactional(readOnly = true)
+    public List<PaymentTotal> getTotals(String debtorIban, String currency, LocalDate from, LocalDate to) {
+        return paymentTotalsRepository.find(debtorIban, currency, from, to);
+    }
+
+    /**
+     * Recomputes {@code payment_totals} from the payments, correcting any drift, e.g. after rows were
+     * changed directly in the database. Writers wait for it, and the outbox relay holds back their events
+     * until it commits.
+     *
+     * @return number of totals rows
+     */
+    @Transactional
+    public int rebuildTotals() {
+        int rows = paymentTotalsRepository.rebuild();
+        log.info("Rebuilt {} payment totals", rows);
+        return rows;
+    }
+
+    private PaymentGroupPage page(List<Long> ids, int pageSize) {
+        List<PaymentGroupView> groups = ids.isEmpty() ? List.of()
+                : paymentGroupRepository.findWithPaymentsByIdInOrderByIdAsc(ids).stream()
+                        .map(PaymentGroupView::from)
+                        .collect(Collectors.toList());
+        Long nextCursor = ids.size() == pageSize ? ids.get(ids.size() - 1) : null;
+        return new PaymentGroupPage(groups, nextCursor);
+    }
+
+    /**
+     * Hands every payment group to {@code consumer} in id order while holding only one in the
+     * persistence context at a time.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllGroups(Consumer<PaymentGroupView> consumer) {
+        log.debug("Streaming all payment groups");
+        try (Stream<PaymentGroup> groups = paymentGroupRepository.streamAllOrderedById()) {
+            groups.forEach(group -> {
+                consumer.accept(PaymentGroupView.from(group));
+                entityManager.detach(group);
+            });
+        }
+    }
+
+    @Cacheable(cacheNames = PaymentGroupCache.NAME, key = "#id")
+    @Transactional(readOnly = true)
+    public PaymentGroupView getGroupView(Long id) {
+        log.debug("Fetching payment group view by id: {}", id);
+        return paymentGroupRepository.findWithPaymentsById(id)
+                .map(PaymentGroupView::from)
+                .orElseThrow(() -> {
+                    log.error("Payment group not found with id: {}", id);
+                    return new RuntimeException("Payment group not found: " + id);
+                });
+    }
+
     public PaymentGroup getGroupById(Long id) {
-        log.info("Fetching payment group by id: {}", id);
+        log.debug("Fetching payment group by id: {}", id);
         return paymentGroupRepository.findById(id)
                 .orElseThrow(() -> {
                     log.error("Payment group not found with id: {}", id);
@@ -91,13 +323,305 @@ public class PaymentService {
                 });
     }
 
+    /**
+     * Applies the non-null fields of {@code patch} to the group and to the payments it lists, loading
+     * only those payments. Dirty checking then issues one UPDATE of just the changed columns per row
+     * that actually changed, each checked against and bumping that row's version, and the
+     * payment.modified event carries only the changed fields. A patch that changes nothing writes nothing.
+     *
+     * @throws ObjectOptimisticLockingFailureException if a given version is no longer current
+     */
+    @CacheEvict(cacheNames = PaymentGroupCache.NAME, key = "#id")
     @Transactional
-    public void deleteGroup(Long id) {
-        log.info("Deleting payment group with id: {}", id);
+    public PaymentGroupDiff modifyGroup(Long id, PaymentGroupPatch patch) {
+        log.debug("Modifying payment group with id: {}", id);
         PaymentGroup group = getGroupById(id);
-        paymentGroupRepository.delete(group);
-        log.info("Deleted payment group from database: {}", id);
-        kafkaProducerService.emitDeleted(id);
-        log.info("Emitted delete event for payment group: {}", id);
+        checkVersion(PaymentGroup.class, id, patch.version(), group.getVersion());
+
+        String debtorIban = changed(group.getDebtorIban(), patch.debtorAccount() == null ? null : patch.debtorAccount().iban());
+        String debtorName = changed(group.getDebtorName(), patch.debtorName());
+        LocalDate requestedExecutionDate = changed(group.getRequestedExecutionDate(), patch.requestedExecutionDate());
+        boolean totalsKeyChanged = debtorIban != null || requestedExecutionDate != null;
+        if (totalsKeyChanged) {
+            // Re-added below once the changes are flushed
+            paymentTotalsRepository.subtractGroups(new long[]{id});
+        }
+        apply(group, debtorIban, debtorName, requestedExecutionDate);
+        PaymentTotalsDelta totals = new PaymentTotalsDelta();
+
+        Map<Payment, PaymentDiff> changedPayments = new LinkedHashMap<>();
+        List<PaymentPatch> paymentPatches = patch.payments() == null ? List.of() : patch.payments();
+        if (!paymentPatches.isEmpty()) {
+            Map<String, PaymentPatch> patchesById = paymentPatches.stream()
+                    .collect(Collectors.toMap(PaymentPatch::endToEndIdentification, Function.identity(),
+                            (first, second) -> second, LinkedHashMap::new));
+            List<Payment> payments = paymentRepository.findByPaymentGroupIdAndEndToEndIdentificationIn(id, patchesById.keySet());
+            if (payments.size() < patchesById.size()) {
+                Set<String> missing = new HashSet<>(patchesById.keySet());
+                payments.forEach(payment -> missing.remove(payment.getEndToEndIdentification()));
+                throw new RuntimeException("Payments not found in payment group " + id + ": " + missing);
+            }
+            for (Payment payment : payments) {
+                PaymentPatch paymentPatch = patchesById.get(payment.getEndToEndIdentification());
+                checkVersion(Payment.class, payment.getId(), paymentPatch.version(), payment.getVersion());
+                PaymentDiff diff = diff(payment, paymentPatch);
+                if (diff != null) {
+                    applyWithTotals(group, payment, diff, totals);
+                    changedPayments.put(payment, diff);
+                }
+            }
+        }
+
+        // Writes the changed rows now, so versions are bumped and a concurrent update fails here
+        entityManager.flush();
+        if (totalsKeyChanged) {
+            paymentTotalsRepository.addGroups(new long[]{id});
+        } else {
+            paymentTotalsRepository.add(totals.toTotals());
+        }
+        PaymentGroupDiff diff = new PaymentGroupDiff(id, group.getExternalId(), group.getVersion(),
+                debtorIban, debtorName, requestedExecutionDate,
+                changedPayments.entrySet().stream()
+                        .map(entry -> entry.getValue().withVersion(entry.getKey().getVersion()))
+                        .toList());
+        if (diff.hasChanges()) {
+            kafkaProducerService.emitModified(group.getExternalId(), diff);
+        }
+        log.debug("Modified payment group {}: group fields {}, {} payments", id,
+                diff.groupChanged() ? "changed" : "unchanged", changedPayments.size());
+        return diff;
+    }
+
+    /**
+     * Applies payment.modified events. A row is only updated if the event is newer than its version
+     * here, so redeliveries and events this database already reflects write nothing. Groups or
+     * payments that do not exist (yet) are skipped. No events are emitted.
+     *
+     * @return number of rows updated
+     */
+    @Transactional
+    public int applyModified(Collection<PaymentGroupDiff> diffs) {
+        int updated = 0;
+        List<Long> touched = new ArrayList<>();
+        for (PaymentGroupDiff diff : diffs) {
+            PaymentGroup group = paymentGroupRepository.findByExternalId(diff.externalId()).orElse(null);
+            if (group == null) {
+                log.debug("Skipping payment.modified event for unknown external_id: {}", diff.externalId());
+                continue;
+            }
+            int before = updated;
+            boolean totalsKeyChanged = false;
+            if (diff.groupChanged() && isNewer(diff.version(), group.getVersion())) {
+                totalsKeyChanged = changed(group.getDebtorIban(), diff.debtorIban()) != null
+                        || changed(group.getRequestedExecutionDate(), diff.requestedExecutionDate()) != null;
+                if (totalsKeyChanged) {
+                    paymentTotalsRepository.subtractGroups(new long[]{group.getId()});
+                }
+                apply(group, diff.debtorIban(), diff.debtorName(), diff.requestedExecutionDate());
+                updated++;
+            }
+            PaymentTotalsDelta totals = new PaymentTotalsDelta();
+            if (diff.payments() != null && !diff.payments().isEmpty()) {
+                Map<String, PaymentDiff> paymentDiffs = diff.payments().stream()
+                        .collect(Collectors.toMap(PaymentDiff::endToEndIdentification, Function.identity(),
+                                (first, second) -> second));
+                for (Payment payment : paymentRepository.findByPaymentGroupIdAndEndToEndIdentificationIn(
+                        group.getId(), paymentDiffs.keySet())) {
+                    PaymentDiff paymentDiff = paymentDiffs.get(payment.getEndToEndIdentification());
+                    if (isNewer(paymentDiff.version(), payment.getVersion())) {
+                        applyWithTotals(group, payment, paymentDiff, totals);
+                        updated++;
+                    }
+                }
+            }
+            if (totalsKeyChanged) {
+                entityManager.flush();
+                paymentTotalsRepository.addGroups(new long[]{group.getId()});
+            } else {
+                paymentTotalsRepository.add(totals.toTotals());
+            }
+            if (updated > before) {
+                touched.add(group.getId());
+            }
+        }
+        paymentGroupCache.evict(touched);
+        return updated;
+    }
+
+    private static void checkVersion(Class<?> type, Long id, Long expected, Long actual) {
+        if (expected != null && !expected.equals(actual)) {
+            throw new ObjectOptimisticLockingFailureException(type, id);
+        }
+    }
+
+    private static boolean isNewer(Long eventVersion, Long version) {
+        return eventVersion == null || version == null || eventVersion > version;
+    }
+
+    // The requested value if it differs from the current one, otherwise null (unchanged)
+    private static <T> T changed(T current, T requested) {
+        return requested == null || requested.equals(current) ? null : requested;
+    }
+
+    // Amounts compare by value: 10.5 and 10.50 are the same amount
+    private static BigDecimal changed(BigDecimal current, BigDecimal requested) {
+        return requested == null || (current != null && requested.compareTo(current) == 0) ? null : requested;
+    }
+
+    // Null when nothing would change
+    private static PaymentDiff diff(Payment payment, PaymentPatch patch) {
+        PaymentDiff diff = new PaymentDiff(payment.getEndToEndIdentification(), null,
+                changed(payment.getCurrency(), patch.instructedAmount() == null ? null : patch.instructedAmount().currency()),
+                changed(payment.getAmount(), patch.instructedAmount() == null ? null : patch.instructedAmount().amount()),
+                changed(payment.getCreditorName(), patch.creditorName()),
+                changed(payment.getCreditorIban(), patch.creditorAccount() == null ? null : patch.creditorAccount().iban()),
+                changed(payment.getRemittanceInformation(), patch.remittanceInformationUnstructured()));
+        boolean unchanged = Stream.of(diff.currency(), diff.amount(), diff.creditorName(), diff.creditorIban(),
+                diff.remittanceInformation()).allMatch(Objects::isNull);
+        return unchanged ? null : diff;
+    }
+
+    private static void apply(PaymentGroup group, String debtorIban, String debtorName, LocalDate requestedExecutionDate) {
+        if (debtorIban != null) {
+            group.setDebtorIban(debtorIban);
+        }
+        if (debtorName != null) {
+            group.setDebtorName(debtorName);
+        }
+        if (requestedExecutionDate != null) {
+            group.setRequestedExecutionDate(requestedExecutionDate);
+        }
+    }
+
+    // Collects the totals delta of a currency or amount change: the old amount out, the new one in
+    private static void applyWithTotals(PaymentGroup group, Payment payment, PaymentDiff diff, PaymentTotalsDelta totals) {
+        boolean totalsChanged = diff.currency() != null || diff.amount() != null;
+        if (totalsChanged) {
+            totals.subtract(group, payment);
+        }
+        apply(payment, diff);
+        if (totalsChanged) {
+            totals.add(group, payment);
+        }
+    }
+
+    private static void apply(Payment payment, PaymentDiff diff) {
+        if (diff.currency() != null) {
+            payment.setCurrency(diff.currency());
+        }
+        if (diff.amount() != null) {
+            payment.setAmount(diff.amount());
+        }
+        if (diff.creditorName() != null) {
+            payment.setCreditorName(diff.creditorName());
+        }
+        if (diff.creditorIban() != null) {
+            payment.setCreditorIban(diff.creditorIban());
+        }
+        if (diff.remittanceInformation() != null) {
+            payment.setRemittanceInformation(diff.remittanceInformation());
+        }
+    }
+
+    /**
+     * Deletes the group and its payments with two statements instead of loading them and letting
+     * orphan removal delete each payment.
+     */
+    @CacheEvict(cacheNames = PaymentGroupCache.NAME, key = "#id")
+    @Transactional
+    public void deleteGroup(Long id) {
+        log.debug("Deleting payment group with id: {}", id);
+        String externalId = paymentGroupRepository.findExternalIdById(id)
+                .orElseThrow(() -> {
+                    log.error("Payment group not found with id: {}", id);
+                    return new RuntimeException("Payment group not found: " + id);
+                });
+        List<Long> ids = List.of(id);
+        paymentTotalsRepository.subtractGroups(new long[]{id});
+        int payments = paymentRepository.deleteByPaymentGroupIdIn(ids);
+        paymentGroupRepository.deleteByIdIn(ids);
+        endToEndIdIndex.removed(payments);
+        forgetKeysAfterCommit(List.of(externalId));
+        log.debug("Deleted payment group {} with {} payments from database", id, payments);
+        kafkaProducerService.emitDeleted(externalId, id);
+        log.debug("Emitted delete event for payment group: {}", id);
+    }
+
+    /**
+     * Deletes the given groups with their payments and emits a payment.deleted event for each,
+     * in one transaction and a fixed number of statements however many groups there are.
+     * Ids that do not exist are ignored.
+     */
+    @Transactional
+    public BulkDeleteResult deleteGroupsById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new BulkDeleteResult(0, 0);
+        }
+        return delete(paymentDeleteRepository.lockGroups(ids.stream().mapToLong(Long::longValue).toArray()));
+    }
+
+    /**
+     * Like {@link #deleteGroupsById}, for all groups of one source system and execution date,
+     * e.g. a cancelled batch.
+     */
+    @Transactional
+    public BulkDeleteResult deleteGroupsBySource(String sourceSystem, LocalDate requestedExecutionDate) {
+        return delete(paymentDeleteRepository.lockGroups(sourceSystem, requestedExecutionDate));
+    }
+
+    private BulkDeleteResult delete(Map<Long, String> groups) {
+        if (groups.isEmpty()) {
+            return new BulkDeleteResult(0, 0);
+        }
+        long[] ids = groups.keySet().stream().mapToLong(Long::longValue).toArray();
+        paymentTotalsRepository.subtractGroups(ids);
+        int payments = paymentDeleteRepository.deletePayments(ids);
+        int deleted = paymentDeleteRepository.deleteGroups(ids);
+        endToEndIdIndex.removed(payments);
+        paymentGroupCache.evict(groups.keySet());
+        forgetKeysAfterCommit(groups.values());
+
+        Map<String, Long> events = new LinkedHashMap<>();
+        groups.forEach((id, externalId) -> events.put(externalId, id));
+        kafkaProducerService.emitDeletedAll(events);
+        log.debug("Bulk deleted {} payment groups and {} payments", deleted, payments);
+        return new BulkDeleteResult(deleted, payments);
+    }
+
+    /**
+     * Deletes the given groups and their payments with two statements, without loading them.
+     * Ids that do not exist are ignored. No events are emitted: this applies payment.deleted events
+     * in both consumer modes.
+     *
+     * @return number of groups deleted
+     */
+    @Transactional
+    public int deleteGroups(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<String> externalIds = paymentGroupRepository.findExternalIdsByIdIn(ids);
+        paymentTotalsRepository.subtractGroups(ids.stream().mapToLong(Long::longValue).toArray());
+        int payments = paymentRepository.deleteByPaymentGroupIdIn(ids);
+        int groups = paymentGroupRepository.deleteByIdIn(ids);
+        endToEndIdIndex.removed(payments);
+        paymentGroupCache.evict(ids);
+        forgetKeysAfterCommit(externalIds);
+        log.debug("Deleted {} payment groups and {} payments", groups, payments);
+        return groups;
+    }
+
+    // A deleted external_id may be created again; only once the delete is committed, or a concurrent ingest could re-add it
+    private void forgetKeysAfterCommit(Collection<String> externalIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            externalIds.forEach(recentKeys::remove);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                externalIds.forEach(recentKeys::remove);
+            }
+        });
     }
 }
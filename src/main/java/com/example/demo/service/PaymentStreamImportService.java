@@ -0,0 +1,245 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ImportError;
+import com.example.demo.dto.ImportSummary;
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.model.PaymentGroup;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports a JSON array of payment groups in three stages:
+ * <ol>
+ *     <li>the calling thread splits the input into chunks of {@code app.import.batch-size} JSON trees;</li>
+ *     <li>worker threads bind, validate and map each chunk in parallel;</li>
+ *     <li>the calling thread persists the mapped chunks in input order, each in its own transaction,
+ *     which also emits their payment.created events.</li>
+ * </ol>
+ * At most {@code app.import.pipeline.max-in-flight} chunks are read ahead of the one being persisted,
+ * so memory stays bounded however large the input is. Invalid groups are reported with their errors
+ * and skipped; a chunk that fails to persist is retried group by group so a single bad group does not
+ * reject its neighbours. Duplicate end-to-end ids are found before a chunk is written, so then only the
+ * groups containing them are retried.
+ */
+@Service
+@Slf4j
+public class PaymentStreamImportService implements DisposableBean {
+
+    static final int MAX_REPORTED_FAILURES = 1000;
+
+    private final PaymentService paymentService;
+    private final ObjectMapper objectMapper;
+    private final PaymentValidator paymentValidator;
+    private final ExecutorService workers;
+    private final int maxInFlight;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    public PaymentStreamImportService(PaymentService paymentService,
+                                      ObjectMapper objectMapper,
+                                      PaymentValidator paymentValidator,
+                                      @Value("${app.import.pipeline.threads:0}") int threads,
+                                      @Value("${app.import.pipeline.max-in-flight:0}") int maxInFlight) {
+        this.paymentService = paymentService;
+        this.objectMapper = objectMapper;
+        this.paymentValidator = paymentValidator;
+        int workerCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.workers = Executors.newFixedThreadPool(workerCount, workerThreads());
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : 2 * workerCount;
+    }
+
+    public ImportSummary importStream(InputStream in) throws IOException {
+        int chunkSize = Math.max(1, batchSize);
+        Tally tally = new Tally();
+        Deque<Future<List<MappedGroup>>> inFlight = new ArrayDeque<>();
+
+        try (PaymentGroupRecordReader reader = new PaymentGroupRecordReader(objectMapper, in)) {
+            long index = 0;
+            List<JsonNode> chunk = new ArrayList<>(chunkSize);
+            while (reader.hasNext()) {
+                chunk.add(reader.nextTree());
+                if (chunk.size() == chunkSize) {
+                    inFlight.add(submit(chunk, index));
+                    index += chunk.size();
+                    chunk = new ArrayList<>(chunkSize);
+                    // Backpressure: stop reading until the oldest chunk is persisted
+                    if (inFlight.size() >= maxInFlight) {
+                        persist(await(inFlight.poll()), tally);
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                inFlight.add(submit(chunk, index));
+            }
+            while (!inFlight.isEmpty()) {
+                persist(await(inFlight.poll()), tally);
+            }
+        } finally {
+            inFlight.forEach(pending -> pending.cancel(true));
+        }
+
+        log.info("Streaming import finished: {} groups, {} payments imported, {} groups failed",
+                tally.groups, tally.payments, tally.failed);
+        return new ImportSummary(tally.groups, tally.payments, tally.failed, tally.failedExternalIds, tally.errors);
+    }
+
+    private Future<List<MappedGroup>> submit(List<JsonNode> chunk, long firstIndex) {
+        return workers.submit(() -> {
+            List<MappedGroup> mapped = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                mapped.add(map(chunk.get(i), firstIndex + i));
+            }
+            return mapped;
+        });
+    }
+
+    private MappedGroup map(JsonNode tree, long index) {
+        String externalId = tree.path("externalId").asText(null);
+        PaymentGroupRecord record;
+        try {
+            record = objectMapper.treeToValue(tree, PaymentGroupRecord.class);
+        } catch (IOException | IllegalArgumentException e) {
+            return MappedGroup.invalid(index, externalId, List.of("Unreadable payment group: " + e.getMessage()));
+        }
+        List<String> errors = paymentValidator.validate(record);
+        if (!errors.isEmpty()) {
+            return MappedGroup.invalid(index, externalId, errors);
+        }
+        return new MappedGroup(index, externalId, PaymentService.convertToEntity(record), List.of());
+    }
+
+    private List<MappedGroup> await(Future<List<MappedGroup>> chunk) {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while mapping payment groups", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to map payment groups", e.getCause());
+        }
+    }
+
+    private void persist(List<MappedGroup> chunk, Tally tally) {
+        List<MappedGroup> valid = new ArrayList<>(chunk.size());
+        for (MappedGroup group : chunk) {
+            if (group.entity() == null) {
+                log.debug("Rejected payment group at index {} with external_id: {}: {}",
+                        group.index(), group.externalId(), group.errors());
+                tally.failed(group, group.errors());
+            } else {
+                valid.add(group);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        List<MappedGroup> retry = valid;
+        try {
+            paymentService.importGroups(valid.stream().map(MappedGroup::entity).toList());
+            valid.forEach(tally::imported);
+            return;
+        } catch (DuplicateEndToEndIdException e) {
+            // Nothing was written: import the groups without duplicates as a chunk, and retry only the others one
+            // by one, so the first occurrence of an id repeated within the input still gets in
+            List<MappedGroup> clean = new ArrayList<>(valid.size());
+            retry = new ArrayList<>();
+            for (MappedGroup group : valid) {
+                boolean duplicate = group.entity().getPayments() != null && group.entity().getPayments().stream()
+                        .anyMatch(payment -> e.getDuplicates().contains(payment.getEndToEndIdentification()));
+                if (duplicate) {
+                    retry.add(group);
+                } else {
+                    clean.add(group);
+                }
+            }
+            log.info("Chunk of {} groups has duplicate end-to-end ids in {} groups", valid.size(), retry.size());
+            if (!clean.isEmpty()) {
+                try {
+                    paymentService.importGroups(clean.stream().map(MappedGroup::entity).toList());
+                    clean.forEach(tally::imported);
+                } catch (RuntimeException cleanError) {
+                    log.warn("Chunk of {} groups failed, retrying one by one: {}", clean.size(), cleanError.getMessage());
+                    retry.addAll(clean);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Chunk of {} groups failed, retrying one by one: {}", valid.size(), e.getMessage());
+        }
+        retryOneByOne(retry, tally);
+    }
+
+    private void retryOneByOne(List<MappedGroup> groups, Tally tally) {
+        for (MappedGroup group : groups) {
+            try {
+                // A fresh entity: the failed transaction may have left ids on the first one
+                paymentService.importPayments(List.of(PaymentGroupRecord.from(group.entity())));
+                tally.imported(group);
+            } catch (RuntimeException groupError) {
+                log.warn("Failed to import payment group with external_id: {}, error: {}",
+                        group.externalId(), groupError.getMessage());
+                tally.failed(group, List.of(String.valueOf(NestedExceptionUtils.getMostSpecificCause(groupError).getMessage())));
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdownNow();
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "payment-import-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // entity is null when the group was rejected
+    private record MappedGroup(long index, String externalId, PaymentGroup entity, List<String> errors) {
+        static MappedGroup invalid(long index, String externalId, List<String> errors) {
+            return new MappedGroup(index, externalId, null, errors);
+        }
+    }
+
+    private static final class Tally {
+        private long groups;
+        private long payments;
+        private long failed;
+        private final List<String> failedExternalIds = new ArrayList<>();
+        private final List<ImportError> errors = new ArrayList<>();
+
+        void imported(MappedGroup group) {
+            groups++;
+            payments += group.entity().getPayments() == null ? 0 : group.entity().getPayments().size();
+        }
+
+        void failed(MappedGroup group, List<String> reasons) {
+            failed++;
+            if (failedExternalIds.size() < MAX_REPORTED_FAILURES) {
+                failedExternalIds.add(group.externalId());
+                errors.add(new ImportError(group.index(), group.externalId(), reasons));
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentTotal;
+import com.example.demo.model.Amount;
+import com.example.demo.model.CurrencyCode;
+import com.example.demo.model.Payment;
+import com.example.demo.model.PaymentGroup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Signed {@code payment_totals} changes collected while payments are modified, summed per debtor IBAN,
+ * currency and execution date in minor units, so a patch of many payments writes one delta per key and
+ * none for changes that cancel out. Amounts {@link Amount} cannot represent, e.g. rows stored before
+ * validation, are passed on unsummed.
+ */
+final class PaymentTotalsDelta {
+
+    private final Map<Key, Sum> sums = new LinkedHashMap<>();
+    private final List<PaymentTotal> unsummed = new ArrayList<>();
+
+    void add(PaymentGroup group, Payment payment) {
+        add(group, payment, 1);
+    }
+
+    void subtract(PaymentGroup group, Payment payment) {
+        add(group, payment, -1);
+    }
+
+    private void add(PaymentGroup group, Payment payment, int sign) {
+        CurrencyCode currency = CurrencyCode.of(payment.getCurrency());
+        BigDecimal value = payment.getAmount();
+        if (currency == null || value == null || !Amount.fits(currency, value)) {
+            unsummed.add(new PaymentTotal(group.getDebtorIban(), payment.getCurrency(), group.getRequestedExecutionDate(),
+                    sign, value == null ? BigDecimal.ZERO : sign < 0 ? value.negate() : value));
+            return;
+        }
+        Amount amount = Amount.of(currency, value);
+        Sum sum = sums.computeIfAbsent(new Key(group.getDebtorIban(), currency, group.getRequestedExecutionDate()),
+                key -> new Sum(new Amount(currency, 0)));
+        sum.count += sign;
+        sum.amount = sum.amount.plus(sign < 0 ? amount.negate() : amount);
+    }
+
+    List<PaymentTotal> toTotals() {
+        List<PaymentTotal> totals = new ArrayList<>(unsummed);
+        sums.forEach((key, sum) -> {
+            if (sum.count != 0 || sum.amount.signum() != 0) {
+                totals.add(new PaymentTotal(key.debtorIban(), key.currency().code(), key.requestedExecutionDate(),
+                        sum.count, sum.amount.toBigDecimal()));
+            }
+        });
+        return totals;
+    }
+
+    private record Key(String debtorIban, CurrencyCode currency, LocalDate requestedExecutionDate) {
+    }
+
+    private static final class Sum {
+        private long count;
+        private Amount amount;
+
+        private Sum(Amount amount) {
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupPatch;
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import com.example.demo.model.Amount;
+import com.example.demo.model.CurrencyCode;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Business checks applied to payment groups before they are stored, by every import path and the
+ * payment.created consumers: required fields and the lengths of their columns, IBANs (characters,
+ * the registered length of their country and check digits), SEPA end-to-end identifications,
+ * ISO 4217 currencies and positive amounts with no more decimals than the currency allows and the
+ * amount columns store. A group passing them cannot fail a column constraint when it is inserted.
+ * Patches are held to the same rules for the fields they set. Stateless and thread-safe.
+ * <p>
+ * Each check is a single pass over the characters. A valid payment allocates nothing: currencies
+ * resolve to interned {@link CurrencyCode}s and messages are only built for fields that fail.
+ */
+@Component
+public class PaymentValidator {
+
+    private static final int IBAN_MIN_LENGTH = 5;
+    private static final int IBAN_MAX_LENGTH = 34;
+
+    // SWIFT IBAN registry: country code and total length. Territories using another country's
+    // IBAN (e.g. Jersey with GB, Guadeloupe with FR) have no entry of their own.
+    private static final String IBAN_REGISTRY = """
+            AD24 AE23 AL28 AT20 AZ28 BA20 BE16 BG22 BH22 BI27 BR29 BY28 CH21 CR22 CY28 CZ24 DE22 DJ27
+            DK18 DO28 EE20 EG29 ES24 FI18 FK18 FO18 FR27 GB22 GE22 GI23 GL18 GR27 GT28 HR21 HU28 IE22
+            IL23 IQ23 IS26 IT27 JO30 KW30 KZ20 LB28 LC32 LI21 LT20 LU20 LV21 LY25 MC27 MD24 ME22 MK19
+            MN20 MR27 MT31 MU30 NI28 NL18 NO15 OM23 PK24 PL28 PS29 PT25 QA29 RO24 RS22 RU33 SA24 SC31
+            SD18 SE24 SI19 SK24 SM27 SO23 ST25 SV28 TL23 TN24 TR26 UA29 VA22 VG24 XK20 YE30""";
+
+    // Total IBAN length by country code as a base-26 number, 0 for countries without IBANs
+    private static final byte[] IBAN_LENGTHS = new byte[26 * 26];
+
+    static {
+        for (String entry : IBAN_REGISTRY.split("\\s+")) {
+            IBAN_LENGTHS[country(entry.charAt(0), entry.charAt(1))] = Byte.parseByte(entry.substring(2));
+        }
+    }
+
+    static final int END_TO_END_ID_MAX_LENGTH = 35;
+
+    // Lengths of the text columns of payment_groups and payments
+    private static final int NAME_MAX_LENGTH = 255;
+    private static final int CODE_MAX_LENGTH = 64;
+    private static final int COUNTRY_MAX_LENGTH = 2;
+
+    // SEPA character set of the pain.001/pacs.008 schemes
+    private static final boolean[] SEPA_CHARACTERS = new boolean[128];
+
+    static {
+        for (char c : "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789/-?:().,'+ ".toCharArray()) {
+            SEPA_CHARACTERS[c] = true;
+        }
+    }
+
+    private static final String IBAN_FORMAT = "is not a valid IBAN: expected a country code, 2 check digits and up to 30 letters or digits";
+    private static final String IBAN_CHECK_DIGITS = "is not a valid IBAN: check digits do not match";
+    private static final String END_TO_END_ID_LENGTH = "must be at most " + END_TO_END_ID_MAX_LENGTH + " characters";
+    private static final String END_TO_END_ID_CHARACTERS = "must only contain letters, digits, spaces and / - ? : ( ) . , ' +";
+    private static final String END_TO_END_ID_SLASHES = "must not start or end with '/' or contain '//'";
+
+    /**
+     * @return one message per problem, prefixed with the offending field; empty if the group is valid
+     */
+    public List<String> validate(PaymentGroupRecord group) {
+        List<String> errors = new ArrayList<>();
+        checkText("externalId", group.externalId(), true, NAME_MAX_LENGTH, errors);
+        String debtorIbanProblem = ibanProblem(group.debtorAccount() == null ? null : group.debtorAccount().iban());
+        if (debtorIbanProblem != null) {
+            errors.add("debtorAccount.iban: " + debtorIbanProblem);
+        }
+        checkText("debtorName", group.debtorName(), true, NAME_MAX_LENGTH, errors);
+        if (group.requestedExecutionDate() == null) {
+            errors.add("requestedExecutionDate: is required");
+        }
+        checkText("uname", group.uname(), true, CODE_MAX_LENGTH, errors);
+        checkText("tcif", group.tcif(), true, CODE_MAX_LENGTH, errors);
+        checkText("country", group.country(), true, COUNTRY_MAX_LENGTH, errors);
+        checkText("sourceSystem", group.sourceSystem(), true, CODE_MAX_LENGTH, errors);
+        if (group.payments() == null || group.payments().isEmpty()) {
+            errors.add("payments: at least one payment is required");
+            return errors;
+        }
+        for (int i = 0; i < group.payments().size(); i++) {
+            validate(group.payments().get(i), i, errors);
+        }
+        return errors;
+    }
+
+    private void validate(PaymentRecord payment, int index, List<String> errors) {
+        if (payment == null) {
+            errors.add(path(index) + ": is required");
+            return;
+        }
+        String endToEndIdProblem = endToEndIdProblem(payment.endToEndIdentification());
+        if (endToEndIdProblem != null) {
+            errors.add(path(index) + "endToEndIdentification: " + endToEndIdProblem);
+        }
+        checkText(path(index) + "creditorName", payment.creditorName(), true, NAME_MAX_LENGTH, errors);
+        String creditorIbanProblem = ibanProblem(payment.creditorAccount() == null ? null : payment.creditorAccount().iban());
+        if (creditorIbanProblem != null) {
+            errors.add(path(index) + "creditorAccount.iban: " + creditorIbanProblem);
+        }
+        checkText(path(index) + "remittanceInformationUnstructured", payment.remittanceInformationUnstructured(),
+                false, NAME_MAX_LENGTH, errors);
+        if (payment.instructedAmount() == null) {
+            errors.add(path(index) + "instructedAmount: is required");
+            return;
+        }
+        validate(payment.instructedAmount(), index, errors);
+    }
+
+    /**
+     * @return one message per problem, prefixed with the offending field; empty if the patch is valid
+     */
+    public List<String> validate(PaymentGroupPatch patch) {
+        List<String> errors = new ArrayList<>();
+        String debtorIbanProblem = patch.debtorAccount() == null ? null : ibanProblem(patch.debtorAccount().iban());
+        if (debtorIbanProblem != null) {
+            errors.add("debtorAccount.iban: " + debtorIbanProblem);
+        }
+        if (patch.debtorName() != null && patch.debtorName().isBlank()) {
+            errors.add("debtorName: must not be blank");
+        } else {
+            checkText("debtorName", patch.debtorName(), false, NAME_MAX_LENGTH, errors);
+        }
+        if (patch.payments() == null) {
+            return errors;
+        }
+        Set<String> endToEndIds = new HashSet<>();
+        for (int i = 0; i < patch.payments().size(); i++) {
+            PaymentGroupPatch.PaymentPatch payment = patch.payments().get(i);
+            if (payment == null) {
+                errors.add(path(i) + ": is required");
+                continue;
+            }
+            if (isBlank(payment.endToEndIdentification())) {
+                errors.add(path(i) + "endToEndIdentification: is required");
+            } else if (!endToEndIds.add(payment.endToEndIdentification())) {
+                errors.add(path(i) + "endToEndIdentification: is listed more than once");
+            }
+            String creditorIbanProblem = payment.creditorAccount() == null ? null : ibanProblem(payment.creditorAccount().iban());
+            if (creditorIbanProblem != null) {
+                errors.add(path(i) + "creditorAccount.iban: " + creditorIbanProblem);
+            }
+            if (payment.creditorName() != null && payment.creditorName().isBlank()) {
+                errors.add(path(i) + "creditorName: must not be blank");
+            } else {
+                checkText(path(i) + "creditorName", payment.creditorName(), false, NAME_MAX_LENGTH, errors);
+            }
+            checkText(path(i) + "remittanceInformationUnstructured", payment.remittanceInformationUnstructured(),
+                    false, NAME_MAX_LENGTH, errors);
+            if (payment.instructedAmount() != null) {
+                validate(payment.instructedAmount(), i, errors);
+            }
+        }
+        return errors;
+    }
+
+    private void validate(PaymentRecord.InstructedAmount amount, int index, List<String> errors) {
+        CurrencyCode currency = CurrencyCode.of(amount.currency());
+        if (currency == null) {
+            errors.add(path(index) + "instructedAmount.currency: is not an ISO 4217 code");
+        }
+        if (amount.amount() == null || amount.amount().signum() <= 0) {
+            errors.add(path(index) + "instructedAmount.amount: must be positive");
+        } else if (currency != null && !Amount.hasStorableScale(currency, amount.amount())) {
+            int decimals = Amount.maxDecimals(currency);
+            errors.add(path(index) + "instructedAmount.amount: " + (decimals < currency.fractionDigits()
+                    ? "has more than " + decimals + " decimals, the most that is stored"
+                    : "has more decimals than " + currency + " allows"));
+        } else if (currency != null && !Amount.fits(currency, amount.amount())) {
+            errors.add(path(index) + "instructedAmount.amount: is too large");
+        }
+    }
+
+    // Adds an error if a required value is blank or the value is longer than its column
+    private static void checkText(String field, String value, boolean required, int maxLength, List<String> errors) {
+        if (isBlank(value)) {
+            if (required) {
+                errors.add(field + ": is required");
+            }
+        } else if (value.length() > maxLength) {
+            errors.add(field + ": must be at most " + maxLength + " characters");
+        }
+    }
+
+    private static String path(int index) {
+        return "payments[" + index + "].";
+    }
+
+    static boolean isValidIban(String iban) {
+        return ibanProblem(iban) == null;
+    }
+
+    /**
+     * ISO 13616 check in electronic format: two letters, two check digits and an alphanumeric BBAN,
+     * as long as the registry prescribes for the country, with the whole number (country and check
+     * digits moved to the end, letters as 10..35) being 1 modulo 97. The remainder is kept below 97
+     * digit by digit, so no big number is built.
+     *
+     * @return why {@code iban} is invalid, or {@code null} if it is valid
+     */
+    static String ibanProblem(CharSequence iban) {
+        if (iban == null || iban.isEmpty()) {
+            return "is required";
+        }
+        int length = iban.length();
+        if (length < IBAN_MIN_LENGTH || length > IBAN_MAX_LENGTH
+                || !isUpperLetter(iban.charAt(0)) || !isUpperLetter(iban.charAt(1))
+                || !isDigit(iban.charAt(2)) || !isDigit(iban.charAt(3))) {
+            return IBAN_FORMAT;
+        }
+        int remainder = 0;
+        for (int i = 0; i < length; i++) {
+            char c = iban.charAt((i + 4) % length);
+            if (isDigit(c)) {
+                remainder = (remainder * 10 + (c - '0')) % 97;
+            } else if (isUpperLetter(c)) {
+                remainder = (remainder * 100 + (c - 'A' + 10)) % 97;
+            } else {
+                return IBAN_FORMAT;
+            }
+        }
+        int expectedLength = IBAN_LENGTHS[country(iban.charAt(0), iban.charAt(1))];
+        if (expectedLength == 0) {
+            return "is not a valid IBAN: " + iban.subSequence(0, 2) + " has no IBANs";
+        }
+        if (length != expectedLength) {
+            return "is not a valid IBAN: " + iban.subSequence(0, 2) + " IBANs have " + expectedLength + " characters";
+        }
+        return remainder == 1 ? null : IBAN_CHECK_DIGITS;
+    }
+
+    /**
+     * SEPA rules for the end-to-end identification: 1 to 35 characters of the SEPA character set,
+     * not starting or ending with '/' and without '//'.
+     *
+     * @return why {@code id} is invalid, or {@code null} if it is valid
+     */
+    static String endToEndIdProblem(String id) {
+        if (isBlank(id)) {
+            return "is required";
+        }
+        int length = id.length();
+        if (length > END_TO_END_ID_MAX_LENGTH) {
+            return END_TO_END_ID_LENGTH;
+        }
+        char previous = 0;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c >= SEPA_CHARACTERS.length || !SEPA_CHARACTERS[c]) {
+                return END_TO_END_ID_CHARACTERS;
+            }
+            if (c == '/' && previous == '/') {
+                return END_TO_END_ID_SLASHES;
+            }
+            previous = c;
+        }
+        return id.charAt(0) == '/' || id.charAt(length - 1) == '/' ? END_TO_END_ID_SLASHES : null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean isUpperLetter(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int country(char first, char second) {
+        return (first - 'A') * 26 + (second - 'A');
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, least-recently-used set of idempotency keys (group external ids) that this instance
+ * has already committed. Lets redelivered events be dropped without touching the database; a miss
+ * only means the database check decides. Deleted and archived groups are removed after commit, so their
+ * external_id can be created again.
+ */
+@Component
+public class RecentKeyCache {
+
+    private final Map<String, Boolean> keys;
+
+    public RecentKeyCache(@Value("${app.kafka.consumer.recent-keys-capacity:10000}") int capacity) {
+        this.keys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized boolean contains(String key) {
+        return keys.get(key) != null;
+    }
+
+    public synchronized void add(String key) {
+        keys.put(key, Boolean.TRUE);
+    }
+
+    public synchronized void remove(String key) {
+        keys.remove(key);
+    }
+}
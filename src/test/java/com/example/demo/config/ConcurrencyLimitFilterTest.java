@@ -0,0 +1,67 @@
+package com.example.demo.config;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 10);
+
+    @Test
+    void doFilter_shouldRejectRequest_whenAllSlotsAreTaken() throws Exception {
+        // Given
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        // The first request is still running when the second one arrives
+        MockFilterChain firstChain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response)
+                    throws IOException, ServletException {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/payments/page"), rejected, new MockFilterChain());
+            }
+        };
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/payments"), new MockHttpServletResponse(), firstChain);
+
+        // Then
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    void doFilter_shouldReleaseSlot_afterRequestCompletes() throws Exception {
+        // Given
+        AtomicInteger handled = new AtomicInteger();
+        MockFilterChain counting = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                handled.incrementAndGet();
+            }
+        };
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/payments/page"), new MockHttpServletResponse(), counting);
+        }
+
+        // Then
+        assertThat(handled).hasValue(3);
+    }
+
+    @Test
+    void requestLimit_shouldReserveConnectionsForListenersAndRelay() {
+        assertThat(VirtualThreadConfig.requestLimit(20, 6)).isEqualTo(12);
+        assertThat(VirtualThreadConfig.requestLimit(5, 6)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.config;
+
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.service.PaymentEventCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.converter.ConversionException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentEventMessageConverterTest {
+
+    private final PaymentEventMessageConverter converter = new PaymentEventMessageConverter(new ObjectMapper());
+
+    private final PaymentGroupRecord group = new PaymentGroupRecord(
+            new PaymentGroupRecord.DebtorAccount("EE382200221020145685"), "Debtor", null, List.of(),
+            "converter-ext-id", "user", "tcif", "EE", "system");
+
+    @Test
+    void toMessage_shouldReadJsonAndBinaryValues() {
+        // Given
+        byte[] json = "{\"externalId\":\"converter-ext-id\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] binary = PaymentEventCodec.encode(group);
+
+        // When
+        Object fromJson = convert(json, PaymentGroupRecord.class);
+        Object fromBinary = convert(binary, PaymentGroupRecord.class);
+
+        // Then
+        assertThat(fromJson).isInstanceOf(PaymentGroupRecord.class);
+        assertThat(((PaymentGroupRecord) fromJson).externalId()).isEqualTo("converter-ext-id");
+        assertThat(fromBinary).isEqualTo(group);
+    }
+
+    @Test
+    void toMessage_shouldRejectBinaryEventOfOtherType() {
+        // Given
+        byte[] binary = PaymentEventCodec.encode(42L);
+
+        // When & Then
+        assertThatThrownBy(() -> convert(binary, PaymentGroupRecord.class))
+                .isInstanceOf(ConversionException.class);
+    }
+
+    private Object convert(byte[] value, Class<?> type) {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("payment.created", 0, 0L, "key", value);
+        return converter.toMessage(record, null, null, type).getPayload();
+    }
+}
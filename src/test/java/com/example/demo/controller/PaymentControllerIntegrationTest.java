@@ -13,6 +13,7 @@ import org.springframework.boot.test.util.TestPropertyValues;
 import org.springframework.context.ApplicationContextInitializer;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
@@ -71,6 +72,9 @@ public class PaymentControllerIntegrationTest {
     @Autowired
     private KafkaTemplate<String, Object> kafkaTemplate;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     public void testImportAndCrud() throws Exception {
         repository.deleteAll();
@@ -113,10 +117,10 @@ public class PaymentControllerIntegrationTest {
 
         // Prepare data
         PaymentRecord.InstructedAmount amount = new PaymentRecord.InstructedAmount("EUR", new BigDecimal("25.00"));
-        PaymentRecord.CreditorAccount cAcc = new PaymentRecord.CreditorAccount("EE123456789");
+        PaymentRecord.CreditorAccount cAcc = new PaymentRecord.CreditorAccount("EE701700017001577198");
         PaymentRecord pRecord = new PaymentRecord("kafka-001", amount, "kafka creditor", cAcc, "kafka-test");
 
-        PaymentGroupRecord.DebtorAccount dAcc = new PaymentGroupRecord.DebtorAccount("EE987654321");
+        PaymentGroupRecord.DebtorAccount dAcc = new PaymentGroupRecord.DebtorAccount("EE021010220208830224");
         PaymentGroupRecord gRecord = new PaymentGroupRecord(
                 dAcc, 
                 "kafka debtor", 
@@ -139,4 +143,103 @@ public class PaymentControllerIntegrationTest {
             assertThat(groups.get(0).getDebtorName()).isEqualTo("kafka debtor");
         });
     }
+
+    @Test
+    public void testThreeDecimalCurrencyIsStoredWithoutRounding() throws Exception {
+        repository.deleteAll();
+
+        // Prepare data: BHD has three decimals, the amount columns two
+        PaymentRecord.CreditorAccount cAcc = new PaymentRecord.CreditorAccount("EE701700017001577198");
+        PaymentGroupRecord.DebtorAccount dAcc = new PaymentGroupRecord.DebtorAccount("EE021010220208830224");
+        PaymentRecord stored = new PaymentRecord("bhd-001",
+                new PaymentRecord.InstructedAmount("BHD", new BigDecimal("1.250")), "creditor name", cAcc, "bhd");
+        PaymentRecord rounded = new PaymentRecord("bhd-002",
+                new PaymentRecord.InstructedAmount("BHD", new BigDecimal("1.005")), "creditor name", cAcc, "bhd");
+        LocalDate date = LocalDate.now();
+
+        // POST Import
+        mockMvc.perform(post("/api/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(new PaymentGroupRecord(dAcc, "debtor name",
+                                date, List.of(stored), "int-test-bhd-1", "int-user", "int-tcif", "EE", "integration-test")))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(new PaymentGroupRecord(dAcc, "debtor name",
+                                date, List.of(rounded), "int-test-bhd-2", "int-user", "int-tcif", "EE", "integration-test")))))
+                .andExpect(status().isBadRequest());
+
+        // Stored and totalled as sent
+        mockMvc.perform(get("/api/payments"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].externalId").value("int-test-bhd-1"))
+                .andExpect(jsonPath("$[0].payments[0].amount").value(1.25));
+        mockMvc.perform(get("/api/payments/totals").param("currency", "BHD"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].paymentCount").value(1))
+                .andExpect(jsonPath("$[0].totalAmount").value(1.25));
+    }
+
+    @Test
+    public void testBulkLoadSkipsRepeatedGroupsAndRejectsGroupsWithDuplicatePayments() throws Exception {
+        repository.deleteAll();
+
+        // Prepare data: the last group repeats an external id, the second group an end-to-end id
+        PaymentRecord.CreditorAccount cAcc = new PaymentRecord.CreditorAccount("EE701700017001577198");
+        PaymentGroupRecord.DebtorAccount dAcc = new PaymentGroupRecord.DebtorAccount("EE382200221020145685");
+        LocalDate date = LocalDate.now().plusDays(7);
+        PaymentGroupRecord first = new PaymentGroupRecord(dAcc, "debtor name", date, List.of(
+                new PaymentRecord("bulk-001", new PaymentRecord.InstructedAmount("EUR", new BigDecimal("10.00")), "creditor name", cAcc, "bulk"),
+                new PaymentRecord("bulk-002", new PaymentRecord.InstructedAmount("EUR", new BigDecimal("5.50")), "creditor name", cAcc, "bulk")),
+                "int-test-bulk-1", "int-user", "int-tcif", "EE", "integration-test");
+        PaymentGroupRecord second = new PaymentGroupRecord(dAcc, "debtor name", date, List.of(
+                new PaymentRecord("bulk-003", new PaymentRecord.InstructedAmount("EUR", new BigDecimal("2.25")), "creditor name", cAcc, "bulk"),
+                new PaymentRecord("bulk-001", new PaymentRecord.InstructedAmount("EUR", new BigDecimal("99.00")), "creditor name", cAcc, "bulk")),
+                "int-test-bulk-2", "int-user", "int-tcif", "EE", "integration-test");
+        PaymentGroupRecord repeated = new PaymentGroupRecord(dAcc, "debtor name", date, List.of(
+                new PaymentRecord("bulk-004", new PaymentRecord.InstructedAmount("EUR", new BigDecimal("7.00")), "creditor name", cAcc, "bulk")),
+                "int-test-bulk-1", "int-user", "int-tcif", "EE", "integration-test");
+
+        // POST Bulk load
+        mockMvc.perform(post("/api/payments/bulk-load")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(first, second, repeated))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.groupsLoaded").value(1))
+                .andExpect(jsonPath("$.paymentsLoaded").value(2))
+                // The repeated group and its payment
+                .andExpect(jsonPath("$.groupsSkipped").value(1))
+                .andExpect(jsonPath("$.paymentsSkipped").value(1))
+                .andExpect(jsonPath("$.skippedExternalIds.length()").value(1))
+                .andExpect(jsonPath("$.skippedExternalIds[0]").value("int-test-bulk-1"))
+                // The group reusing an end-to-end id, with none of its payments
+                .andExpect(jsonPath("$.groupsRejected").value(1))
+                .andExpect(jsonPath("$.rejected[0].index").value(1))
+                .andExpect(jsonPath("$.rejected[0].externalId").value("int-test-bulk-2"))
+                .andExpect(jsonPath("$.duplicateEndToEndIds.length()").value(1))
+                .andExpect(jsonPath("$.duplicateEndToEndIds[0]").value("bulk-001"));
+
+        // Row counts
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM payment_groups", Long.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM payments", Long.class)).isEqualTo(2);
+
+        // Every payment belongs to the group it was listed in; the rejected group left none behind
+        assertThat(jdbcTemplate.queryForList("""
+                SELECT p.end_to_end_identification || ':' || g.external_id || ':' || p.amount
+                FROM payments p JOIN payment_groups g ON g.id = p.payment_group_id
+                ORDER BY p.end_to_end_identification""", String.class))
+                .containsExactly("bulk-001:int-test-bulk-1:10.00", "bulk-002:int-test-bulk-1:5.50");
+
+        // Totals count only the loaded payments
+        mockMvc.perform(get("/api/payments/totals")
+                        .param("debtorIban", "EE382200221020145685")
+                        .param("from", date.toString())
+                        .param("to", date.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].paymentCount").value(2))
+                .andExpect(jsonPath("$[0].totalAmount").value(15.50));
+    }
 }
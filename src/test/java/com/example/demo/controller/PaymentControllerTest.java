@@ -1,9 +1,26 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.BulkDeleteResult;
+import com.example.demo.dto.BulkLoadResult;
+import com.example.demo.dto.ImportError;
+import com.example.demo.dto.ImportJobView;
+import com.example.demo.dto.ImportSummary;
+import com.example.demo.dto.PaymentGroupDiff;
+import com.example.demo.dto.PaymentGroupPage;
+import com.example.demo.dto.PaymentGroupPatch;
 import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentGroupSearch;
+import com.example.demo.dto.PaymentGroupView;
+import com.example.demo.dto.PaymentTotal;
 import com.example.demo.dto.PaymentRecord;
+import com.example.demo.model.ImportJob;
 import com.example.demo.model.PaymentGroup;
+import com.example.demo.service.DuplicateEndToEndIdException;
+import com.example.demo.service.ImportJobService;
+import com.example.demo.service.PaymentBulkLoadService;
 import com.example.demo.service.PaymentService;
+import com.example.demo.service.PaymentStreamImportService;
+import com.example.demo.service.PaymentValidator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,13 +28,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -34,8 +59,21 @@ class PaymentControllerTest {
     @MockBean
     private PaymentService paymentService;
 
+    @MockBean
+    private PaymentStreamImportService paymentStreamImportService;
+
+    @MockBean
+    private PaymentBulkLoadService paymentBulkLoadService;
+
+    @MockBean
+    private PaymentValidator paymentValidator;
+
+    @MockBean
+    private ImportJobService importJobService;
+
     private PaymentGroupRecord testRecord;
     private PaymentGroup testGroup;
+    private PaymentGroupView testView;
 
     @BeforeEach
     void setUp() {
@@ -73,6 +111,7 @@ class PaymentControllerTest {
                 .country("EE")
                 .sourceSystem("ctrl-system")
                 .build();
+        testView = PaymentGroupView.from(testGroup);
     }
 
     @Test
@@ -90,10 +129,118 @@ class PaymentControllerTest {
         verify(paymentService, times(1)).importPayments(any());
     }
 
+    @Test
+    void importPayments_shouldRejectWholeRequest_whenAnyGroupIsInvalid() throws Exception {
+        // Given
+        when(paymentValidator.validate(any(PaymentGroupRecord.class)))
+                .thenReturn(List.of("debtorAccount.iban: is not a valid IBAN: check digits do not match"));
+
+        // When & Then
+        mockMvc.perform(post("/api/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testRecord))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value("1 of 1 payment groups are invalid"))
+                .andExpect(jsonPath("$.errors[0].index").value(0))
+                .andExpect(jsonPath("$.errors[0].errors[0]").value("debtorAccount.iban: is not a valid IBAN: check digits do not match"));
+
+        verify(paymentService, never()).importPayments(any());
+    }
+
+    @Test
+    void importPayments_shouldReturnConflict_whenEndToEndIdsAreDuplicate() throws Exception {
+        // Given
+        when(paymentService.importPayments(any())).thenThrow(new DuplicateEndToEndIdException(Set.of("e2e-1")));
+
+        // When & Then
+        mockMvc.perform(post("/api/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testRecord))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.duplicates[0]").value("e2e-1"));
+    }
+
+    @Test
+    void importPaymentsStream_shouldReturnSummary() throws Exception {
+        // Given
+        when(paymentStreamImportService.importStream(any()))
+                .thenReturn(new ImportSummary(1, 1, 1, List.of("bad-ext-id"),
+                        List.of(new ImportError(1, "bad-ext-id", List.of("debtorAccount.iban: is not a valid IBAN")))));
+
+        // When & Then
+        mockMvc.perform(post("/api/payments/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testRecord))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.groupsImported").value(1))
+                .andExpect(jsonPath("$.failedExternalIds[0]").value("bad-ext-id"))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].errors[0]").value("debtorAccount.iban: is not a valid IBAN"));
+
+        verify(paymentStreamImportService, times(1)).importStream(any());
+    }
+
+    @Test
+    void bulkLoadPayments_shouldReturnResult() throws Exception {
+        // Given
+        when(paymentBulkLoadService.load(any(java.io.InputStream.class)))
+                .thenReturn(new BulkLoadResult(1, 1, 0, 1, List.of(), List.of("dup-e2e"), 0, List.of(), 10, 200.0));
+
+        // When & Then
+        mockMvc.perform(post("/api/payments/bulk-load")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testRecord))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paymentsLoaded").value(1))
+                .andExpect(jsonPath("$.duplicateEndToEndIds[0]").value("dup-e2e"));
+    }
+
+    @Test
+    void submitImportJob_shouldReturnAcceptedWithLocation() throws Exception {
+        // Given
+        ImportJobView job = new ImportJobView(7L, ImportJob.Status.RUNNING, null, 0, 0, 0, 0, null, 0, null,
+                Instant.now(), Instant.now(), null, null, List.of());
+        when(importJobService.submit(any(java.io.InputStream.class))).thenReturn(job);
+
+        // When & Then
+        mockMvc.perform(post("/api/payments/jobs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testRecord))))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/payments/jobs/7"))
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath("$.status").value("RUNNING"));
+    }
+
+    @Test
+    void getImportJob_shouldReturnProgress() throws Exception {
+        // Given
+        ImportJobView job = new ImportJobView(7L, ImportJob.Status.RUNNING, 1000L, 250, 249, 1245, 1, 25.0, 125.0, 6L,
+                Instant.now(), Instant.now(), null, null, List.of(new ImportError(3, "bad-ext-id", List.of("invalid"))));
+        when(importJobService.getJob(7L)).thenReturn(Optional.of(job));
+
+        // When & Then
+        mockMvc.perform(get("/api/payments/jobs/7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.percentComplete").value(25.0))
+                .andExpect(jsonPath("$.estimatedSecondsRemaining").value(6))
+                .andExpect(jsonPath("$.errors[0].externalId").value("bad-ext-id"));
+    }
+
+    @Test
+    void getImportJob_shouldReturnNotFound_whenMissing() throws Exception {
+        // Given
+        when(importJobService.getJob(8L)).thenReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(get("/api/payments/jobs/8"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getAllPaymentGroups_shouldReturnAllGroups() throws Exception {
         // Given
-        when(paymentService.getAllGroups()).thenReturn(List.of(testGroup));
+        when(paymentService.getAllGroups()).thenReturn(List.of(testView));
 
         // When & Then
         mockMvc.perform(get("/api/payments"))
@@ -103,17 +250,89 @@ class PaymentControllerTest {
         verify(paymentService, times(1)).getAllGroups();
     }
 
+    @Test
+    void getPaymentGroupsPage_shouldReturnItemsAndCursor() throws Exception {
+        // Given
+        when(paymentService.getGroupsPage(eq(0L), eq(1))).thenReturn(new PaymentGroupPage(List.of(testView), 1L));
+
+        // When & Then
+        mockMvc.perform(get("/api/payments/page").param("after", "0").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].debtorName").value("Test Debtor"))
+                .andExpect(jsonPath("$.nextCursor").value(1));
+    }
+
+    @Test
+    void searchPaymentGroups_shouldBindFilters() throws Exception {
+        // Given
+        PaymentGroupSearch search = new PaymentGroupSearch(LocalDate.of(2025, 1, 15), LocalDate.of(2025, 1, 15),
+                "EE", "mobile-app", null, null, null);
+        when(paymentService.searchGroups(search, 10L, 50)).thenReturn(new PaymentGroupPage(List.of(testView), 11L));
+
+        // When & Then
+        mockMvc.perform(get("/api/payments/search")
+                        .param("from", "2025-01-15")
+                        .param("to", "2025-01-15")
+                        .param("country", "EE")
+                        .param("sourceSystem", "mobile-app")
+                        .param("after", "10")
+                        .param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].debtorName").value("Test Debtor"))
+                .andExpect(jsonPath("$.nextCursor").value(11));
+    }
+
+    @Test
+    void getPaymentTotals_shouldBindFilters() throws Exception {
+        // Given
+        LocalDate date = LocalDate.of(2025, 1, 15);
+        when(paymentService.getTotals("EE987654321", "EUR", date, null)).thenReturn(List.of(
+                new PaymentTotal("EE987654321", "EUR", date, 3, new BigDecimal("31.50"))));
+
+        // When & Then
+        mockMvc.perform(get("/api/payments/totals")
+                        .param("debtorIban", "EE987654321")
+                        .param("currency", "EUR")
+                        .param("from", "2025-01-15"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].paymentCount").value(3))
+                .andExpect(jsonPath("$[0].totalAmount").value(31.5));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamPaymentGroups_shouldWriteOneJsonLinePerGroup() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            Consumer<PaymentGroupView> consumer = invocation.getArgument(0);
+            consumer.accept(testView);
+            consumer.accept(testView);
+            return null;
+        }).when(paymentService).streamAllGroups(any());
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/payments/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(body.lines()).hasSize(2).allMatch(line -> line.contains("\"debtorName\":\"Test Debtor\""));
+    }
+
     @Test
     void getPaymentGroup_shouldReturnGroup() throws Exception {
         // Given
-        when(paymentService.getGroupById(1L)).thenReturn(testGroup);
+        when(paymentService.getGroupView(1L)).thenReturn(testView);
 
         // When & Then
         mockMvc.perform(get("/api/payments/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.debtorName").value("Test Debtor"));
 
-        verify(paymentService, times(1)).getGroupById(1L);
+        verify(paymentService, times(1)).getGroupView(1L);
     }
 
     @Test
@@ -127,4 +346,79 @@ class PaymentControllerTest {
 
         verify(paymentService, times(1)).deleteGroup(1L);
     }
+
+    @Test
+    void bulkDeletePaymentGroups_shouldDeleteBySourceSystemAndDate() throws Exception {
+        // Given
+        when(paymentService.deleteGroupsBySource("mobile-app", LocalDate.of(2025, 1, 15)))
+                .thenReturn(new BulkDeleteResult(2, 10));
+
+        // When & Then
+        mockMvc.perform(post("/api/payments/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"sourceSystem\":\"mobile-app\",\"requestedExecutionDate\":\"2025-01-15\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.groupsDeleted").value(2))
+                .andExpect(jsonPath("$.paymentsDeleted").value(10));
+    }
+
+    @Test
+    void bulkDeletePaymentGroups_shouldRejectAmbiguousRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/payments/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2],\"sourceSystem\":\"mobile-app\"}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(paymentService);
+    }
+
+    @Test
+    void modifyPaymentGroup_shouldReturnDiff() throws Exception {
+        // Given
+        PaymentGroupDiff diff = new PaymentGroupDiff(1L, "ext-id-123", 4L, null, null, null, List.of(
+                new PaymentGroupDiff.PaymentDiff("end-to-end-123", 2L, null, null, null, null, "Corrected")));
+        when(paymentValidator.validate(any(PaymentGroupPatch.class))).thenReturn(List.of());
+        when(paymentService.modifyGroup(eq(1L), any(PaymentGroupPatch.class))).thenReturn(diff);
+
+        // When & Then
+        mockMvc.perform(patch("/api/payments/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"payments\":[{\"endToEndIdentification\":\"end-to-end-123\",\"version\":1,"
+                                + "\"remittanceInformationUnstructured\":\"Corrected\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(4))
+                .andExpect(jsonPath("$.payments[0].remittanceInformation").value("Corrected"))
+                .andExpect(jsonPath("$.debtorName").doesNotExist());
+    }
+
+    @Test
+    void modifyPaymentGroup_shouldRejectInvalidPatch() throws Exception {
+        // Given
+        when(paymentValidator.validate(any(PaymentGroupPatch.class)))
+                .thenReturn(List.of("debtorName: must not be blank"));
+
+        // When & Then
+        mockMvc.perform(patch("/api/payments/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"debtorName\":\" \"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value("debtorName: must not be blank"));
+
+        verifyNoInteractions(paymentService);
+    }
+
+    @Test
+    void modifyPaymentGroup_shouldReturnConflict_whenVersionIsStale() throws Exception {
+        // Given
+        when(paymentValidator.validate(any(PaymentGroupPatch.class))).thenReturn(List.of());
+        when(paymentService.modifyGroup(eq(1L), any(PaymentGroupPatch.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(PaymentGroup.class, 1L));
+
+        // When & Then
+        mockMvc.perform(patch("/api/payments/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":1,\"debtorName\":\"Renamed\"}"))
+                .andExpect(status().isConflict());
+    }
 }
@@ -0,0 +1,53 @@
+package com.example.demo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AmountTest {
+
+    private static final CurrencyCode EUR = CurrencyCode.of("EUR");
+    private static final CurrencyCode JPY = CurrencyCode.of("JPY");
+
+    @Test
+    void of_shouldConvertToMinorUnitsAndBack() {
+        // When
+        Amount amount = Amount.of(EUR, new BigDecimal("10.500"));
+
+        // Then
+        assertThat(amount.minorUnits()).isEqualTo(1050);
+        assertThat(amount.toBigDecimal()).isEqualTo(new BigDecimal("10.50"));
+        assertThat(amount.plus(Amount.of(EUR, BigDecimal.ONE)).negate()).isEqualTo(new Amount(EUR, -1150));
+        assertThat(Amount.of(JPY, new BigDecimal("1E+3")).minorUnits()).isEqualTo(1000);
+    }
+
+    @Test
+    void of_shouldRejectSurplusDecimalsAndOverflow() {
+        assertThat(Amount.fits(JPY, new BigDecimal("1.5"))).isFalse();
+        assertThat(Amount.fits(EUR, new BigDecimal("9999999999999999.99"))).isTrue();
+        assertThat(Amount.fits(EUR, new BigDecimal("99999999999999999.99"))).isFalse();
+        // DECIMAL(19, 2) holds 17 integer digits, even for a currency without decimals
+        assertThat(Amount.fits(JPY, new BigDecimal("99999999999999999"))).isTrue();
+        assertThat(Amount.fits(JPY, new BigDecimal("999999999999999999"))).isFalse();
+        assertThat(Amount.fits(JPY, new BigDecimal("1E+17"))).isFalse();
+        assertThatThrownBy(() -> Amount.of(JPY, new BigDecimal("1.5"))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Amount.of(EUR, BigDecimal.ONE).plus(Amount.of(JPY, BigDecimal.ONE)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void currencyCode_shouldResolveInternedInstances() {
+        assertThat(CurrencyCode.of(new StringBuilder("EUR"))).isSameAs(EUR);
+        assertThat(CurrencyCode.of("xEURx".toCharArray(), 1, 3)).isSameAs(EUR);
+        assertThat(EUR.code()).isSameAs(CurrencyCode.of("EUR").code());
+        assertThat(EUR.fractionDigits()).isEqualTo(2);
+        assertThat(JPY.fractionDigits()).isZero();
+        assertThat(CurrencyCode.of("BHD").fractionDigits()).isEqualTo(3);
+        assertThat(CurrencyCode.of("eur")).isNull();
+        assertThat(CurrencyCode.of("ZZZ")).isNull();
+        assertThat(CurrencyCode.values()[EUR.ordinal()]).isSameAs(EUR);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.OutboxEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Writers commit on their own connections, so the test must not hold a transaction of its own
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+@ContextConfiguration(initializers = OutboxEventRepositoryTest.Initializer.class)
+class OutboxEventRepositoryTest {
+
+    @Container
+    public static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("test_db")
+            .withUsername("test_user")
+            .withPassword("test_password");
+
+    static class Initializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(ConfigurableApplicationContext configurableApplicationContext) {
+            TestPropertyValues.of(
+                    "spring.datasource.url=" + postgreSQLContainer.getJdbcUrl(),
+                    "spring.datasource.username=" + postgreSQLContainer.getUsername(),
+                    "spring.datasource.password=" + postgreSQLContainer.getPassword()
+            ).applyTo(configurableApplicationContext.getEnvironment());
+        }
+    }
+
+    @Autowired
+    private OutboxEventRepository repository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM outbox_events");
+    }
+
+    private static Connection begin(DataSource dataSource) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    // Writes with an explicit id, as an instance drawing from its own pooled block of the sequence would
+    private static void write(Connection connection, long id, String topic) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO outbox_events (id, topic, event_key, payload) VALUES (?, ?, 'ext-1', ?)")) {
+            statement.setLong(1, id);
+            statement.setString(2, topic);
+            statement.setBytes(3, new byte[0]);
+            statement.executeUpdate();
+        }
+    }
+
+    private List<Long> relayableIds() {
+        return repository.findOldest(Limit.of(100)).stream().map(OutboxEvent::getId).toList();
+    }
+
+    @Test
+    void findOldest_shouldOrderByWritingTransaction_whenPooledIdsInterleave() throws SQLException {
+        // Given: the group is created by an instance holding ids 51-100, then modified by one holding 1-50
+        try (Connection first = begin(dataSource); Connection second = begin(dataSource)) {
+            write(first, 51, "payment.created");
+            write(second, 1, "payment.modified");
+            first.commit();
+            second.commit();
+        }
+
+        // When
+        List<Long> ids = relayableIds();
+
+        // Then
+        assertThat(ids).containsExactly(51L, 1L);
+    }
+
+    @Test
+    void findOldest_shouldHoldBackLaterEvents_whileAnEarlierWriterIsOpen() throws SQLException {
+        try (Connection first = begin(dataSource); Connection second = begin(dataSource)) {
+            // Given
+            write(first, 1, "payment.created");
+            write(second, 2, "payment.modified");
+            second.commit();
+
+            // When & Then: publishing 2 now would put it ahead of 1 once the first writer commits
+            assertThat(relayableIds()).isEmpty();
+
+            first.commit();
+            assertThat(relayableIds()).containsExactly(1L, 2L);
+        }
+    }
+}
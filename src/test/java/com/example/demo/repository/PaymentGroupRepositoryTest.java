@@ -0,0 +1,146 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Payment;
+import com.example.demo.model.PaymentGroup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+@ContextConfiguration(initializers = PaymentGroupRepositoryTest.Initializer.class)
+class PaymentGroupRepositoryTest {
+
+    private static final int GROUPS = 10;
+
+    @Container
+    public static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("test_db")
+            .withUsername("test_user")
+            .withPassword("test_password");
+
+    static class Initializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(ConfigurableApplicationContext configurableApplicationContext) {
+            TestPropertyValues.of(
+                    "spring.datasource.url=" + postgreSQLContainer.getJdbcUrl(),
+                    "spring.datasource.username=" + postgreSQLContainer.getUsername(),
+                    "spring.datasource.password=" + postgreSQLContainer.getPassword()
+            ).applyTo(configurableApplicationContext.getEnvironment());
+        }
+    }
+
+    @Autowired
+    private PaymentGroupRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < GROUPS; i++) {
+            PaymentGroup group = PaymentGroup.builder()
+                    .debtorIban("EE021010220208830224")
+                    .debtorName("debtor " + i)
+                    .requestedExecutionDate(LocalDate.now())
+                    .externalId("repo-test-" + i)
+                    .uname("user")
+                    .tcif("tcif")
+                    .country("EE")
+                    .sourceSystem("repo-test")
+                    .build();
+            for (int p = 0; p < 3; p++) {
+                group.addPayment(Payment.builder()
+                        .endToEndIdentification("repo-test-" + i + "-" + p)
+                        .currency("EUR")
+                        .amount(new BigDecimal("1.00"))
+                        .creditorName("creditor")
+                        .creditorIban("EE701700017001577198")
+                        .build());
+            }
+            repository.save(group);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private static int paymentCount(List<PaymentGroup> groups) {
+        return groups.stream().mapToInt(group -> group.getPayments().size()).sum();
+    }
+
+    @Test
+    void findAllWithPayments_shouldUseSingleQuery() {
+        // When
+        List<PaymentGroup> groups = repository.findAllWithPayments();
+
+        // Then
+        assertThat(groups).hasSize(GROUPS);
+        assertThat(paymentCount(groups)).isEqualTo(GROUPS * 3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keysetPage_shouldUseTwoQueries() {
+        // When
+        List<Long> ids = repository.findIdsAfter(0L, Limit.of(4));
+        List<PaymentGroup> groups = repository.findWithPaymentsByIdInOrderByIdAsc(ids);
+
+        // Then
+        assertThat(groups).hasSize(4);
+        assertThat(paymentCount(groups)).isEqualTo(4 * 3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void streamAllOrderedById_shouldUseSingleQuery() {
+        // When
+        int payments;
+        try (Stream<PaymentGroup> groups = repository.streamAllOrderedById()) {
+            payments = groups.mapToInt(group -> group.getPayments().size()).sum();
+        }
+
+        // Then
+        assertThat(payments).isEqualTo(GROUPS * 3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void lazyPayments_shouldBeBatchFetched() {
+        // When
+        List<PaymentGroup> groups = repository.findAll();
+
+        // Then
+        assertThat(paymentCount(groups)).isEqualTo(GROUPS * 3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
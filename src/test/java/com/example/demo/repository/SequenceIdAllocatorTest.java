@@ -0,0 +1,74 @@
+package com.example.demo.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SequenceIdAllocatorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private SequenceIdAllocator allocator;
+
+    @Test
+    void allocate_shouldExpandEachHighValueIntoItsBlock() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("payments_seq"), eq(2)))
+                .thenReturn(List.of(100L, 300L));
+
+        // When
+        long[] ids = allocator.allocate("payments_seq", 50, 60);
+
+        // Then
+        assertThat(ids).hasSize(60);
+        assertThat(ids[0]).isEqualTo(51L);
+        assertThat(ids[49]).isEqualTo(100L);
+        assertThat(ids[50]).isEqualTo(251L);
+        assertThat(ids[59]).isEqualTo(260L);
+    }
+
+    @Test
+    void allocate_shouldSkipStartValueOfFreshSequence() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("payments_seq"), eq(1)))
+                .thenReturn(List.of(1L))
+                .thenReturn(List.of(51L));
+
+        // When
+        long[] ids = allocator.allocate("payments_seq", 50, 3);
+
+        // Then
+        assertThat(ids).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    void nextIds_shouldReuseRestOfBlockAcrossCalls() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("payment_groups_seq"), eq(1)))
+                .thenReturn(List.of(100L));
+
+        // When
+        long[] first = allocator.nextIds("payment_groups_seq", 50, 1);
+        long[] second = allocator.nextIds("payment_groups_seq", 50, 2);
+
+        // Then
+        assertThat(first).containsExactly(51L);
+        assertThat(second).containsExactly(52L, 53L);
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Long.class), eq("payment_groups_seq"), eq(1));
+    }
+}
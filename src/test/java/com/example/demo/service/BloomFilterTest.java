@@ -0,0 +1,52 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_shouldFindEveryPutString() {
+        // Given
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("e2e-" + i);
+        }
+
+        // Then
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("e2e-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void mightContain_shouldKeepFalsePositivesNearConfiguredRate_whenFilledToCapacity() {
+        // Given
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("stored-" + i);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("new-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertThat(falsePositives).isLessThan(1_500);
+        assertThat(filter.hashCount()).isEqualTo(7);
+        assertThat(filter.bitSize()).isBetween(958_000L, 960_000L);
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidRate() {
+        assertThatThrownBy(() -> new BloomFilter(1_000, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
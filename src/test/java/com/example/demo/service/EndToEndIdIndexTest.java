@@ -0,0 +1,102 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.EndToEndIdRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EndToEndIdIndexTest {
+
+    @Mock
+    private EndToEndIdRepository endToEndIdRepository;
+
+    private EndToEndIdIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new EndToEndIdIndex(endToEndIdRepository, 1_000, 0.01);
+    }
+
+    private void stored(String... ids) {
+        // One page, keyed by payment ids 1..n
+        when(endToEndIdRepository.forEachAfter(anyLong(), anyInt(), any())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            if (after > 0) {
+                return after;
+            }
+            Consumer<String> action = invocation.getArgument(2);
+            List.of(ids).forEach(action);
+            return (long) ids.length;
+        });
+    }
+
+    @Test
+    void findDuplicates_shouldConfirmEveryId_untilBuilt() {
+        // Given
+        when(endToEndIdRepository.findExisting(anyList())).thenReturn(List.of("b"));
+
+        // When
+        assertThat(index.findDuplicates(List.of("a", "b"))).containsExactly("b");
+
+        // Then
+        verify(endToEndIdRepository).findExisting(List.of("a", "b"));
+    }
+
+    @Test
+    void findDuplicates_shouldNotQuery_whenNoIdMayBeStored() {
+        // Given
+        stored("stored-1", "stored-2");
+        index.maintain();
+
+        // When
+        assertThat(index.findDuplicates(List.of("new-1", "new-2", "new-3"))).isEmpty();
+
+        // Then
+        assertThat(index.isReady()).isTrue();
+        verify(endToEndIdRepository, never()).findExisting(anyList());
+    }
+
+    @Test
+    void findDuplicates_shouldConfirmOnlyPossibleHitsInOneQuery() {
+        // Given
+        stored("stored-1");
+        index.maintain();
+        index.add("added-1");
+        when(endToEndIdRepository.findExisting(List.of("stored-1", "added-1"))).thenReturn(List.of("stored-1"));
+
+        // When
+        assertThat(index.findDuplicates(List.of("new-1", "stored-1", "added-1", "new-1"))).containsExactly("new-1", "stored-1");
+
+        // Then
+        verify(endToEndIdRepository, times(1)).findExisting(anyList());
+    }
+
+    @Test
+    void maintain_shouldRebuild_onlyWhenMostlyStale() {
+        // Given
+        stored("stored-1");
+        index.maintain();
+        index.removed(100);
+
+        // When
+        index.maintain();
+        index.removed(1_000);
+        index.maintain();
+
+        // Then
+        verify(endToEndIdRepository, times(2)).count();
+    }
+}
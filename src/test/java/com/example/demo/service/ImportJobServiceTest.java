@@ -0,0 +1,196 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ImportJobView;
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import com.example.demo.model.ImportJob;
+import com.example.demo.repository.ImportJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportJobServiceTest {
+
+    @Mock
+    private ImportJobRepository importJobRepository;
+
+    @Mock
+    private PaymentService paymentService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private ImportJobService importJobService;
+
+    @BeforeEach
+    void setUp() {
+        importJobService = new ImportJobService(importJobRepository, paymentService, new PaymentValidator(),
+                objectMapper, transactionTemplate, directory.toString(), 1, 60_000);
+        ReflectionTestUtils.setField(importJobService, "batchSize", 2);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        importJobService.destroy();
+    }
+
+    private PaymentGroupRecord groupRecord(String externalId, String debtorIban) {
+        PaymentRecord paymentRecord = new PaymentRecord(
+                externalId + "-e2e",
+                new PaymentRecord.InstructedAmount("EUR", new BigDecimal("10.00")),
+                "Creditor",
+                new PaymentRecord.CreditorAccount("LV80BANK0000435195001"),
+                "job test"
+        );
+        return new PaymentGroupRecord(
+                new PaymentGroupRecord.DebtorAccount(debtorIban),
+                "Debtor",
+                LocalDate.now(),
+                List.of(paymentRecord),
+                externalId,
+                "user",
+                "tcif",
+                "EE",
+                "job-system"
+        );
+    }
+
+    private ImportJob queuedJob(List<PaymentGroupRecord> records, long nextIndex) throws Exception {
+        Path file = directory.resolve("import-test.json");
+        Files.write(file, objectMapper.writeValueAsBytes(records));
+        ImportJob job = ImportJob.builder()
+                .id(1L)
+                .status(ImportJob.Status.QUEUED)
+                .filePath(file.toString())
+                .nextIndex(nextIndex)
+                .build();
+        when(importJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(importJobRepository.findResumableIds(any())).thenReturn(List.of(1L));
+        return job;
+    }
+
+    private static void awaitFinished(ImportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(job.isFinished()).as("job finished").isTrue();
+    }
+
+    @Test
+    void resumeJobs_shouldContinueFromCheckpointInChunks() throws Exception {
+        // Given: the first group was committed before the previous run stopped
+        ImportJob job = queuedJob(List.of(groupRecord("a", "EE382200221020145685"),
+                groupRecord("b", "EE382200221020145685"),
+                groupRecord("invalid", "EE000000000000000000"),
+                groupRecord("c", "EE382200221020145685")), 1);
+
+        // When
+        importJobService.resumeJobs();
+        awaitFinished(job);
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(ImportJob.Status.COMPLETED);
+        assertThat(job.getTotalGroups()).isEqualTo(4);
+        assertThat(job.getNextIndex()).isEqualTo(4);
+        assertThat(job.getRunStartIndex()).isEqualTo(1);
+        assertThat(job.getGroupsImported()).isEqualTo(2);
+        assertThat(job.getPaymentsImported()).isEqualTo(2);
+        assertThat(job.getGroupsFailed()).isEqualTo(1);
+        assertThat(job.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.index()).isEqualTo(2);
+            assertThat(error.externalId()).isEqualTo("invalid");
+        });
+        verify(paymentService).importGroups(argThat(chunk -> chunk.size() == 1
+                && chunk.get(0).getExternalId().equals("b")));
+        verify(paymentService).importGroups(argThat(chunk -> chunk.size() == 1
+                && chunk.get(0).getExternalId().equals("c")));
+        verify(paymentService, never()).importGroups(argThat(chunk -> chunk.stream()
+                .anyMatch(group -> group.getExternalId().equals("a"))));
+        assertThat(Path.of(job.getFilePath())).doesNotExist();
+    }
+
+    @Test
+    void resumeJobs_shouldRetryFailedChunkGroupByGroup() throws Exception {
+        // Given
+        ImportJob job = queuedJob(List.of(groupRecord("good", "EE382200221020145685"),
+                groupRecord("bad", "EE382200221020145685")), 0);
+        when(paymentService.importGroups(anyList())).thenThrow(new RuntimeException("duplicate key"));
+        when(paymentService.importPayments(anyList())).thenAnswer(invocation -> {
+            List<PaymentGroupRecord> records = invocation.getArgument(0);
+            if (records.get(0).externalId().equals("bad")) {
+                throw new RuntimeException("duplicate key");
+            }
+            return List.of();
+        });
+
+        // When
+        importJobService.resumeJobs();
+        awaitFinished(job);
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(ImportJob.Status.COMPLETED);
+        assertThat(job.getNextIndex()).isEqualTo(2);
+        assertThat(job.getGroupsImported()).isEqualTo(1);
+        assertThat(job.getGroupsFailed()).isEqualTo(1);
+        assertThat(job.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.externalId()).isEqualTo("bad");
+            assertThat(error.errors()).containsExactly("duplicate key");
+        });
+    }
+
+    @Test
+    void from_shouldEstimateRemainingTimeFromCurrentRun() {
+        // Given: resumed at group 1000 ten seconds ago, now at 1500 of 3000
+        Instant now = Instant.parse("2026-01-01T12:00:10Z");
+        ImportJob job = ImportJob.builder()
+                .id(1L)
+                .status(ImportJob.Status.RUNNING)
+                .totalGroups(3000L)
+                .nextIndex(1500)
+                .runStartIndex(1000L)
+                .runStartedAt(Instant.parse("2026-01-01T12:00:00Z"))
+                .build();
+
+        // When
+        ImportJobView view = ImportJobView.from(job, now);
+
+        // Then
+        assertThat(view.groupsPerSecond()).isEqualTo(50.0);
+        assertThat(view.percentComplete()).isEqualTo(50.0);
+        assertThat(view.estimatedSecondsRemaining()).isEqualTo(30);
+    }
+}
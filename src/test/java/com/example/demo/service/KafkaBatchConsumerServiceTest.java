@@ -0,0 +1,127 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaBatchConsumerServiceTest {
+
+    @Mock
+    private PaymentService paymentService;
+
+    @Mock
+    private PaymentIngestService paymentIngestService;
+
+    @Mock
+    private PaymentMetrics paymentMetrics;
+
+    @InjectMocks
+    private KafkaBatchConsumerService kafkaBatchConsumerService;
+
+    private PaymentGroupRecord first;
+    private PaymentGroupRecord second;
+
+    @BeforeEach
+    void setUp() {
+        first = record("batch-ext-1");
+        second = record("batch-ext-2");
+    }
+
+    @Test
+    void consumeCreated_shouldIngestWholeBatchAtOnce() {
+        // Given
+        when(paymentIngestService.ingestAll(List.of(first, second))).thenReturn(2);
+
+        // When
+        kafkaBatchConsumerService.consumeCreated(List.of(first, second), List.of());
+
+        // Then
+        verify(paymentIngestService, times(1)).ingestAll(List.of(first, second));
+        verify(paymentIngestService, never()).ingest(any());
+    }
+
+    @Test
+    void consumeCreated_shouldSkipUnconvertibleRecords() {
+        // When
+        kafkaBatchConsumerService.consumeCreated(Arrays.asList(first, null), List.of());
+
+        // Then
+        verify(paymentIngestService, times(1)).ingestAll(List.of(first));
+    }
+
+    @Test
+    void consumeCreated_shouldFallBackToSingleRecords_whenBatchViolatesConstraint() {
+        // Given
+        when(paymentIngestService.ingestAll(List.of(first, second)))
+                .thenThrow(new DataIntegrityViolationException("null value in column"));
+        when(paymentIngestService.ingest(first)).thenThrow(new DataIntegrityViolationException("null value in column"));
+        when(paymentIngestService.ingest(second)).thenReturn(true);
+
+        // When
+        kafkaBatchConsumerService.consumeCreated(List.of(first, second), List.of());
+
+        // Then
+        verify(paymentIngestService, times(1)).ingest(first);
+        verify(paymentIngestService, times(1)).ingest(second);
+    }
+
+    @Test
+    void consumeCreated_shouldPropagateOtherFailures_soBatchIsRedelivered() {
+        // Given
+        when(paymentIngestService.ingestAll(List.of(first))).thenThrow(new IllegalStateException("database down"));
+
+        // When & Then
+        assertThatThrownBy(() -> kafkaBatchConsumerService.consumeCreated(List.of(first), List.of()))
+                .isInstanceOf(IllegalStateException.class);
+        verify(paymentIngestService, never()).ingest(any());
+    }
+
+    @Test
+    void consumeDeleted_shouldDeleteBatchWithSetBasedDelete() {
+        // Given
+        when(paymentService.deleteGroups(List.of(1L, 2L))).thenReturn(2);
+
+        // When
+        kafkaBatchConsumerService.consumeDeleted(List.of(1L, 2L), List.of());
+
+        // Then
+        verify(paymentService, times(1)).deleteGroups(List.of(1L, 2L));
+        verify(paymentService, never()).deleteGroup(any());
+    }
+
+    private static PaymentGroupRecord record(String externalId) {
+        PaymentRecord payment = new PaymentRecord(
+                externalId + "-e2e",
+                new PaymentRecord.InstructedAmount("EUR", new BigDecimal("10.00")),
+                "Batch Creditor",
+                new PaymentRecord.CreditorAccount("EE111222333"),
+                "batch test"
+        );
+        return new PaymentGroupRecord(
+                new PaymentGroupRecord.DebtorAccount("EE444555666"),
+                "Batch Debtor",
+                LocalDate.now(),
+                List.of(payment),
+                externalId,
+                "batch-user",
+                "batch-tcif",
+                "EE",
+                "batch-system"
+        );
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.PaymentGroupDiff;
 import com.example.demo.dto.PaymentGroupRecord;
 import com.example.demo.dto.PaymentRecord;
 import com.example.demo.model.PaymentGroup;
@@ -24,9 +25,15 @@ class KafkaConsumerServiceTest {
     @Mock
     private PaymentService paymentService;
 
+    @Mock
+    private PaymentIngestService paymentIngestService;
+
     @Mock
     private PaymentGroupRepository paymentGroupRepository;
 
+    @Mock
+    private PaymentMetrics paymentMetrics;
+
     @InjectMocks
     private KafkaConsumerService kafkaConsumerService;
 
@@ -59,41 +66,68 @@ class KafkaConsumerServiceTest {
     }
 
     @Test
-    void consumeCreated_shouldImportPayment() {
+    void consumeCreated_shouldIngestPaymentWithoutReEmitting() {
+        // Given
+        when(paymentIngestService.ingest(testRecord)).thenReturn(true);
+
+        // When
+        kafkaConsumerService.consumeCreated(testRecord, 0L);
+
+        // Then
+        verify(paymentIngestService, times(1)).ingest(testRecord);
+        verify(paymentService, never()).importPayments(any());
+    }
+
+    @Test
+    void consumeCreated_shouldNotFail_whenDuplicate() {
         // Given
-        when(paymentService.importPayments(any())).thenReturn(List.of());
+        when(paymentIngestService.ingest(testRecord)).thenReturn(false);
 
         // When
-        kafkaConsumerService.consumeCreated(testRecord);
+        kafkaConsumerService.consumeCreated(testRecord, 0L);
 
         // Then
-        verify(paymentService, times(1)).importPayments(List.of(testRecord));
+        verify(paymentIngestService, times(1)).ingest(testRecord);
     }
 
     @Test
-    void consumeDeleted_shouldDeletePayment() {
+    void consumeDeleted_shouldDeleteWithoutEmitting() {
         // Given
         Long id = 1L;
-        doNothing().when(paymentService).deleteGroup(id);
+        when(paymentService.deleteGroups(List.of(id))).thenReturn(1);
 
         // When
-        kafkaConsumerService.consumeDeleted(id);
+        kafkaConsumerService.consumeDeleted(id, 0L);
 
         // Then
-        verify(paymentService, times(1)).deleteGroup(id);
+        verify(paymentService, times(1)).deleteGroups(List.of(id));
+        verify(paymentService, never()).deleteGroup(any());
     }
 
     @Test
-    void consumeDeleted_shouldHandleException_whenGroupNotFound() {
+    void consumeDeleted_shouldDeleteNothing_whenGroupNotFound() {
         // Given
         Long id = 999L;
-        doThrow(new RuntimeException("Group not found")).when(paymentService).deleteGroup(id);
+        when(paymentService.deleteGroups(List.of(id))).thenReturn(0);
+
+        // When
+        kafkaConsumerService.consumeDeleted(id, 0L);
+
+        // Then
+        verify(paymentService, times(1)).deleteGroups(List.of(id));
+    }
+
+    @Test
+    void consumeModified_shouldApplyDiff() {
+        // Given
+        PaymentGroupDiff diff = new PaymentGroupDiff(1L, "kafka-ext-id", 2L, null, "Renamed Debtor", null, List.of());
+        when(paymentService.applyModified(List.of(diff))).thenReturn(1);
 
         // When
-        kafkaConsumerService.consumeDeleted(id);
+        kafkaConsumerService.consumeModified(diff, 0L);
 
         // Then
-        verify(paymentService, times(1)).deleteGroup(id);
-        // No exception should be thrown - it's caught and logged
+        verify(paymentService, times(1)).applyModified(List.of(diff));
+        verify(paymentService, never()).modifyGroup(any(), any());
     }
 }
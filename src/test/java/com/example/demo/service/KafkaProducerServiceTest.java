@@ -1,15 +1,19 @@
 package com.example.demo.service;
 
+import com.example.demo.model.OutboxEvent;
+import com.example.demo.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
 
-import static org.mockito.ArgumentMatchers.eq;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -17,52 +21,77 @@ import static org.mockito.Mockito.verify;
 class KafkaProducerServiceTest {
 
     @Mock
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PaymentMetrics paymentMetrics;
 
-    @InjectMocks
     private KafkaProducerService kafkaProducerService;
 
     @BeforeEach
     void setUp() {
+        kafkaProducerService = new KafkaProducerService(outboxEventRepository, new ObjectMapper(), paymentMetrics);
         // Inject @Value fields manually
         ReflectionTestUtils.setField(kafkaProducerService, "createdTopic", "payment.created");
         ReflectionTestUtils.setField(kafkaProducerService, "modifiedTopic", "payment.modified");
         ReflectionTestUtils.setField(kafkaProducerService, "deletedTopic", "payment.deleted");
+        ReflectionTestUtils.setField(kafkaProducerService, "createdFormat", EventFormat.JSON);
+        ReflectionTestUtils.setField(kafkaProducerService, "modifiedFormat", EventFormat.JSON);
+        ReflectionTestUtils.setField(kafkaProducerService, "deletedFormat", EventFormat.JSON);
     }
 
     @Test
-    void emitCreated_shouldSendMessageToCreatedTopic() {
-        // Given
-        Object payload = "test-payload";
-
+    void emitCreated_shouldQueueEventForCreatedTopic() {
         // When
-        kafkaProducerService.emitCreated(payload);
+        kafkaProducerService.emitCreated("ext-1", Map.of("externalId", "ext-1"));
 
         // Then
-        verify(kafkaTemplate, times(1)).send(eq("payment.created"), eq(payload));
+        OutboxEvent event = savedEvent();
+        assertThat(event.getTopic()).isEqualTo("payment.created");
+        assertThat(event.getEventKey()).isEqualTo("ext-1");
+        assertThat(event.getPayload()).asString().isEqualTo("{\"externalId\":\"ext-1\"}");
     }
 
     @Test
-    void emitModified_shouldSendMessageToModifiedTopic() {
-        // Given
-        Object payload = "test-payload";
+    void emitModified_shouldQueueEventForModifiedTopic() {
+        // When
+        kafkaProducerService.emitModified("ext-1", "test-payload");
 
+        // Then
+        OutboxEvent event = savedEvent();
+        assertThat(event.getTopic()).isEqualTo("payment.modified");
+        assertThat(event.getPayload()).asString().isEqualTo("\"test-payload\"");
+    }
+
+    @Test
+    void emitDeleted_shouldQueueEventForDeletedTopic() {
         // When
-        kafkaProducerService.emitModified(payload);
+        kafkaProducerService.emitDeleted("ext-1", 123L);
 
         // Then
-        verify(kafkaTemplate, times(1)).send(eq("payment.modified"), eq(payload));
+        OutboxEvent event = savedEvent();
+        assertThat(event.getTopic()).isEqualTo("payment.deleted");
+        assertThat(event.getEventKey()).isEqualTo("ext-1");
+        assertThat(event.getPayload()).asString().isEqualTo("123");
     }
 
     @Test
-    void emitDeleted_shouldSendMessageToDeletedTopic() {
+    void emitDeleted_shouldQueueBinaryPayload_whenTopicUsesBinaryFormat() {
         // Given
-        Object payload = 123L;
+        ReflectionTestUtils.setField(kafkaProducerService, "deletedFormat", EventFormat.BINARY);
 
         // When
-        kafkaProducerService.emitDeleted(payload);
+        kafkaProducerService.emitDeleted("ext-1", 123L);
 
         // Then
-        verify(kafkaTemplate, times(1)).send(eq("payment.deleted"), eq(payload));
+        OutboxEvent event = savedEvent();
+        assertThat(PaymentEventCodec.isBinary(event.getPayload())).isTrue();
+        assertThat(PaymentEventCodec.decode(event.getPayload())).isEqualTo(123L);
+    }
+
+    private OutboxEvent savedEvent() {
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository, times(1)).save(captor.capture());
+        return captor.getValue();
     }
 }
@@ -0,0 +1,143 @@
+package com.example.demo.service;
+
+import com.example.demo.model.OutboxEvent;
+import com.example.demo.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Mock
+    private PaymentMetrics paymentMetrics;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement lockStatement;
+
+    @Mock
+    private PreparedStatement unlockStatement;
+
+    @Mock
+    private ResultSet lockResult;
+
+    private OutboxRelay outboxRelay;
+
+    private final byte[] createdPayload = "{}".getBytes();
+    private final byte[] deletedPayload = "7".getBytes();
+    private final OutboxEvent created = new OutboxEvent(1L, "payment.created", "ext-1", createdPayload, null);
+    private final OutboxEvent deleted = new OutboxEvent(2L, "payment.deleted", "ext-1", deletedPayload, null);
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxEventRepository, jdbcTemplate, transactionTemplate, kafkaTemplate, paymentMetrics);
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 100);
+        ReflectionTestUtils.setField(outboxRelay, "sendTimeoutMs", 1000L);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation ->
+                invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+    }
+
+    private void givenLock(boolean acquired) throws SQLException {
+        when(connection.prepareStatement("SELECT pg_try_advisory_lock(?)")).thenReturn(lockStatement);
+        when(lockStatement.executeQuery()).thenReturn(lockResult);
+        when(lockResult.next()).thenReturn(true);
+        when(lockResult.getBoolean(1)).thenReturn(acquired);
+        if (acquired) {
+            when(connection.prepareStatement("SELECT pg_advisory_unlock(?)")).thenReturn(unlockStatement);
+            when(unlockStatement.executeQuery()).thenReturn(mock(ResultSet.class));
+            when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                    invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+            lenient().doAnswer(invocation -> {
+                invocation.<Consumer<Object>>getArgument(0).accept(null);
+                return null;
+            }).when(transactionTemplate).executeWithoutResult(any());
+        }
+    }
+
+    @Test
+    void relayBatch_shouldSendInRelayOrderAndDeleteAfterAcknowledgement() throws SQLException {
+        // Given
+        givenLock(true);
+        when(outboxEventRepository.findOldest(Limit.of(100))).thenReturn(List.of(created, deleted));
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // When
+        int relayed = outboxRelay.relayBatch();
+
+        // Then
+        assertThat(relayed).isEqualTo(2);
+        var inOrder = inOrder(transactionTemplate, kafkaTemplate, outboxEventRepository, unlockStatement);
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(kafkaTemplate).send("payment.created", "ext-1", createdPayload);
+        inOrder.verify(kafkaTemplate).send("payment.deleted", "ext-1", deletedPayload);
+        inOrder.verify(transactionTemplate).executeWithoutResult(any());
+        inOrder.verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        inOrder.verify(unlockStatement).executeQuery();
+    }
+
+    @Test
+    void relayBatch_shouldKeepEventsAndReleaseLock_whenSendFails() throws SQLException {
+        // Given
+        givenLock(true);
+        when(outboxEventRepository.findOldest(Limit.of(100))).thenReturn(List.of(created));
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        // When & Then
+        assertThatThrownBy(() -> outboxRelay.relayBatch()).isInstanceOf(RuntimeException.class);
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+        verify(unlockStatement).executeQuery();
+    }
+
+    @Test
+    void relayBatch_shouldSkip_whenAnotherInstanceHoldsTheLock() throws SQLException {
+        // Given
+        givenLock(false);
+
+        // When
+        int relayed = outboxRelay.relayBatch();
+
+        // Then
+        assertThat(relayed).isZero();
+        verifyNoInteractions(outboxEventRepository, kafkaTemplate, transactionTemplate);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.PaymentArchiveRepository;
+import com.example.demo.repository.PaymentTotalsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentArchiveServiceTest {
+
+    @Mock
+    private PaymentArchiveRepository paymentArchiveRepository;
+
+    @Mock
+    private PaymentTotalsRepository paymentTotalsRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private PaymentGroupCache paymentGroupCache;
+
+    @Mock
+    private EndToEndIdIndex endToEndIdIndex;
+
+    @Mock
+    private RecentKeyCache recentKeys;
+
+    @InjectMocks
+    private PaymentArchiveService paymentArchiveService;
+
+    private final LocalDate before = LocalDate.of(2025, 4, 1);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(paymentArchiveService, "batchSize", 100);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void archiveBatch_shouldCreatePartitionsOnceThenMovePaymentsBeforeGroups() {
+        // Given
+        Map<Long, LocalDate> groups = new LinkedHashMap<>();
+        groups.put(1L, LocalDate.of(2025, 1, 10));
+        groups.put(2L, LocalDate.of(2025, 1, 20));
+        groups.put(3L, LocalDate.of(2025, 2, 5));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyLong())).thenReturn(true);
+        when(paymentArchiveRepository.lockArchivable(before, 100)).thenReturn(groups);
+        when(paymentArchiveRepository.archiveGroups(new long[]{1L, 2L, 3L})).thenReturn(List.of("ext-1", "ext-2", "ext-3"));
+
+        // When
+        int first = paymentArchiveService.archiveBatch(before);
+        int second = paymentArchiveService.archiveBatch(before);
+
+        // Then
+        assertThat(first).isEqualTo(3);
+        assertThat(second).isEqualTo(3);
+        verify(paymentArchiveRepository, times(1)).createPartitions(YearMonth.of(2025, 1));
+        verify(paymentArchiveRepository, times(1)).createPartitions(YearMonth.of(2025, 2));
+        InOrder inOrder = inOrder(paymentTotalsRepository, paymentArchiveRepository);
+        inOrder.verify(paymentTotalsRepository).subtractGroups(new long[]{1L, 2L, 3L});
+        inOrder.verify(paymentArchiveRepository).archivePayments(new long[]{1L, 2L, 3L});
+        inOrder.verify(paymentArchiveRepository).archiveGroups(new long[]{1L, 2L, 3L});
+        verify(paymentGroupCache, times(2)).evict(List.of(1L, 2L, 3L));
+        verify(recentKeys, times(2)).remove("ext-3");
+    }
+
+    @Test
+    void archiveBatch_shouldDoNothing_whenAnotherInstanceHoldsTheLock() {
+        // Given
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyLong())).thenReturn(false);
+
+        // When
+        int archived = paymentArchiveService.archiveBatch(before);
+
+        // Then
+        assertThat(archived).isZero();
+        verifyNoInteractions(paymentArchiveRepository, paymentGroupCache, recentKeys);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentBulkLoadServiceTest {
+
+    @Test
+    void writeRow_shouldQuoteValuesAndLeaveNullsEmpty() throws Exception {
+        // Given
+        StringWriter out = new StringWriter();
+
+        // When
+        PaymentBulkLoadService.writeRow(out, 7L, "say \"hi\", ok", null, "", LocalDate.of(2024, 4, 8),
+                new BigDecimal("15.00").toPlainString());
+
+        // Then
+        assertThat(out.toString()).isEqualTo("\"7\",\"say \"\"hi\"\", ok\",,\"\",\"2024-04-08\",\"15.00\"\n");
+    }
+}
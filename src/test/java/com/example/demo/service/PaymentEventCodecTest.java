@@ -0,0 +1,170 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupDiff;
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import com.example.demo.model.CurrencyCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentEventCodecTest {
+
+    private final PaymentGroupRecord group = new PaymentGroupRecord(
+            new PaymentGroupRecord.DebtorAccount("EE382200221020145685"),
+            "Jüri Debtor",
+            LocalDate.of(2025, 3, 14),
+            List.of(
+                    new PaymentRecord("codec-e2e-1",
+                            new PaymentRecord.InstructedAmount("EUR", new BigDecimal("1234.56")),
+                            "Creditor One", new PaymentRecord.CreditorAccount("LV80BANK0000435195001"), "Invoice 1"),
+                    new PaymentRecord("codec-e2e-2",
+                            new PaymentRecord.InstructedAmount("EUR", new BigDecimal("-0.01")),
+                            "Creditor Two", new PaymentRecord.CreditorAccount("LT121000011101001000"), null)
+            ),
+            "codec-ext-id",
+            "codec-user",
+            "codec-tcif",
+            "EE",
+            "codec-system"
+    );
+
+    @Test
+    void encode_shouldRoundTripPaymentGroup() {
+        // When
+        Object decoded = PaymentEventCodec.decode(PaymentEventCodec.encode(group));
+
+        // Then
+        assertThat(decoded).isEqualTo(group);
+        assertThat(((PaymentGroupRecord) decoded).payments().get(0).instructedAmount().currency())
+                .isSameAs(CurrencyCode.of("EUR").code());
+    }
+
+    @Test
+    void encode_shouldRoundTripNullFieldsAndGroupIds() {
+        // Given
+        PaymentGroupRecord sparse = new PaymentGroupRecord(new PaymentGroupRecord.DebtorAccount(null), null, null,
+                List.of(), "sparse-ext-id", null, null, null, null);
+
+        // When & Then
+        assertThat(PaymentEventCodec.decode(PaymentEventCodec.encode(sparse))).isEqualTo(sparse);
+        assertThat(PaymentEventCodec.decode(PaymentEventCodec.encode(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void encode_shouldBeSmallerThanJson() throws Exception {
+        // Given
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+        // When
+        byte[] binary = PaymentEventCodec.encode(group);
+        byte[] json = objectMapper.writeValueAsBytes(group);
+
+        // Then
+        assertThat(binary.length).isLessThan(json.length / 2);
+        assertThat(PaymentEventCodec.isBinary(binary)).isTrue();
+        assertThat(PaymentEventCodec.isBinary(json)).isFalse();
+    }
+
+    @Test
+    void decode_shouldRejectNewerVersionAndTruncatedData() {
+        // Given
+        byte[] encoded = PaymentEventCodec.encode(group);
+        byte[] newer = encoded.clone();
+        newer[1] = PaymentEventCodec.VERSION + 1;
+
+        // When & Then
+        assertThatThrownBy(() -> PaymentEventCodec.decode(newer))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("version");
+        assertThatThrownBy(() -> PaymentEventCodec.decode(Arrays.copyOf(encoded, encoded.length / 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void decode_shouldRejectEveryTruncation() {
+        // Given
+        byte[] group = PaymentEventCodec.encode(this.group);
+        byte[] diff = PaymentEventCodec.encode(new PaymentGroupDiff(42L, "codec-ext-id", 3L, null, null, null,
+                List.of(new PaymentGroupDiff.PaymentDiff("codec-e2e-1", 0L, "EUR", new BigDecimal("99.90"),
+                        null, null, null))));
+
+        // When & Then
+        for (byte[] encoded : List.of(group, diff)) {
+            for (int length = 0; length < encoded.length; length++) {
+                byte[] truncated = Arrays.copyOf(encoded, length);
+                assertThatThrownBy(() -> PaymentEventCodec.decode(truncated))
+                        .as("truncated to %d bytes", length)
+                        .isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+    }
+
+    @Test
+    void decode_shouldRejectCountsAndLengthsBeyondTheEvent() {
+        // Given: a group of null fields claiming more payments than it has bytes, up to a count that wraps negative
+        byte[] header = {PaymentEventCodec.MAGIC, PaymentEventCodec.VERSION, 1, 0, 0, 0, 0, 0, 0, 0, 0};
+        byte[] manyPayments = concat(header, varLong(Integer.MAX_VALUE));
+        byte[] wrappingCount = concat(header, varLong(-1L));
+        byte[] fewPayments = concat(header, varLong(2), new byte[6]);
+        // A string, and a decimal's unscaled value, longer than the event
+        byte[] longString = concat(new byte[]{PaymentEventCodec.MAGIC, PaymentEventCodec.VERSION, 1},
+                varLong(1L << 40), new byte[8]);
+        byte[] longDecimal = concat(header, varLong(1), new byte[]{0, 0}, varLong(1), varLong(1_000_000), new byte[8]);
+        byte[] hugeScale = concat(header, varLong(1), new byte[]{0, 0}, varLong(1L << 40), varLong(1), new byte[8]);
+        byte[] farDate = concat(new byte[]{PaymentEventCodec.MAGIC, PaymentEventCodec.VERSION, 1, 0, 0},
+                varLong(Long.MAX_VALUE), new byte[8]);
+
+        // When & Then
+        for (byte[] data : List.of(manyPayments, wrappingCount, fewPayments, longString, longDecimal, hugeScale, farDate)) {
+            assertThatThrownBy(() -> PaymentEventCodec.decode(data))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> PaymentEventCodec.decode(manyPayments)).hasMessageContaining("exceeds");
+        assertThatThrownBy(() -> PaymentEventCodec.decode(longString)).hasMessageContaining("exceeds");
+    }
+
+    private static byte[] varLong(long value) {
+        byte[] bytes = new byte[10];
+        int length = 0;
+        while ((value & ~0x7FL) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        byte[] result = new byte[0];
+        for (byte[] part : parts) {
+            int offset = result.length;
+            result = Arrays.copyOf(result, offset + part.length);
+            System.arraycopy(part, 0, result, offset, part.length);
+        }
+        return result;
+    }
+
+    @Test
+    void encode_shouldRoundTripDiffWithUnchangedFieldsLeftNull() {
+        // Given
+        PaymentGroupDiff diff = new PaymentGroupDiff(42L, "codec-ext-id", 3L, null, null, LocalDate.of(2025, 4, 1),
+                List.of(new PaymentGroupDiff.PaymentDiff("codec-e2e-1", 0L, null, new BigDecimal("99.90"),
+                        null, null, "Corrected invoice")));
+
+        // When
+        byte[] encoded = PaymentEventCodec.encode(diff);
+
+        // Then
+        assertThat(PaymentEventCodec.decode(encoded)).isEqualTo(diff);
+        assertThat(encoded.length).isLessThan(64);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentGroupCacheTest {
+
+    private Cache cache;
+
+    private PaymentGroupCache paymentGroupCache;
+
+    @BeforeEach
+    void setUp() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(PaymentGroupCache.NAME);
+        cache = cacheManager.getCache(PaymentGroupCache.NAME);
+        paymentGroupCache = new PaymentGroupCache(cacheManager);
+        cache.put(1L, view(1L, "ext-1"));
+        cache.put(2L, view(2L, "ext-2"));
+    }
+
+    @Test
+    void evict_shouldRemoveGivenIds() {
+        // When
+        paymentGroupCache.evict(List.of(1L, 3L));
+
+        // Then
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNotNull();
+    }
+
+    @Test
+    void evictByExternalId_shouldRemoveMatchingGroupOnly() {
+        // When
+        paymentGroupCache.evictByExternalId("ext-2");
+
+        // Then
+        assertThat(cache.get(1L)).isNotNull();
+        assertThat(cache.get(2L)).isNull();
+    }
+
+    private static PaymentGroupView view(Long id, String externalId) {
+        return new PaymentGroupView(id, 0L, "EE123456789", "Debtor", LocalDate.now(), Instant.now(),
+                externalId, "user", "tcif", "EE", "system", List.of());
+    }
+}
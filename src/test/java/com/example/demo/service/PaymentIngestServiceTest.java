@@ -0,0 +1,203 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import com.example.demo.repository.PaymentDeleteRepository;
+import com.example.demo.repository.PaymentTotalsRepository;
+import com.example.demo.repository.PaymentUpsertRepository;
+import com.example.demo.repository.SequenceIdAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentIngestServiceTest {
+
+    @Mock
+    private PaymentUpsertRepository paymentUpsertRepository;
+
+    @Mock
+    private PaymentDeleteRepository paymentDeleteRepository;
+
+    @Mock
+    private PaymentTotalsRepository paymentTotalsRepository;
+
+    @Mock
+    private SequenceIdAllocator idAllocator;
+
+    @Mock
+    private PaymentMetrics paymentMetrics;
+
+    @Mock
+    private EndToEndIdIndex endToEndIdIndex;
+
+    private RecentKeyCache recentKeys;
+
+    private PaymentIngestService paymentIngestService;
+
+    private PaymentGroupRecord testRecord;
+
+    @BeforeEach
+    void setUp() {
+        recentKeys = new RecentKeyCache(100);
+        paymentIngestService = new PaymentIngestService(paymentUpsertRepository, paymentDeleteRepository, new PaymentValidator(), paymentTotalsRepository, endToEndIdIndex, idAllocator, recentKeys, paymentMetrics);
+
+        PaymentRecord paymentRecord = new PaymentRecord(
+                "ingest-e2e",
+                new PaymentRecord.InstructedAmount("EUR", new BigDecimal("5.00")),
+                "Creditor",
+                new PaymentRecord.CreditorAccount("LV80BANK0000435195001"),
+                "ingest test"
+        );
+        testRecord = new PaymentGroupRecord(
+                new PaymentGroupRecord.DebtorAccount("EE382200221020145685"),
+                "Debtor",
+                LocalDate.now(),
+                List.of(paymentRecord),
+                "ingest-ext-id",
+                "user",
+                "tcif",
+                "EE",
+                "ingest-system"
+        );
+    }
+
+    @Test
+    void ingest_shouldInsertGroupAndPayments_whenNew() {
+        // Given
+        when(idAllocator.nextIds(eq("payment_groups_seq"), anyInt(), eq(1))).thenReturn(new long[]{10L});
+        when(idAllocator.nextIds(eq("payments_seq"), anyInt(), eq(1))).thenReturn(new long[]{20L});
+        when(paymentUpsertRepository.insertGroupsIfAbsent(new long[]{10L}, List.of(testRecord))).thenReturn(List.of(10L));
+        when(paymentUpsertRepository.insertPaymentsIfAbsent(new long[]{20L}, new long[]{10L}, testRecord.payments()))
+                .thenReturn(List.of(20L));
+
+        // When
+        boolean stored = paymentIngestService.ingest(testRecord);
+
+        // Then
+        assertThat(stored).isTrue();
+        assertThat(recentKeys.contains("ingest-ext-id")).isTrue();
+        verify(paymentTotalsRepository, times(1)).addGroups(new long[]{10L});
+    }
+
+    @Test
+    void ingest_shouldSkipPayments_whenGroupAlreadyExists() {
+        // Given
+        when(idAllocator.nextIds(eq("payment_groups_seq"), anyInt(), eq(1))).thenReturn(new long[]{10L});
+        when(paymentUpsertRepository.insertGroupsIfAbsent(new long[]{10L}, List.of(testRecord))).thenReturn(List.of());
+
+        // When
+        boolean stored = paymentIngestService.ingest(testRecord);
+
+        // Then
+        assertThat(stored).isFalse();
+        verify(paymentUpsertRepository, never()).insertPaymentsIfAbsent(any(), any(), anyList());
+        verifyNoInteractions(paymentTotalsRepository);
+        assertThat(recentKeys.contains("ingest-ext-id")).isTrue();
+    }
+
+    @Test
+    void ingest_shouldNotTouchDatabase_whenRecentlySeen() {
+        // Given
+        recentKeys.add("ingest-ext-id");
+
+        // When
+        boolean stored = paymentIngestService.ingest(testRecord);
+
+        // Then
+        assertThat(stored).isFalse();
+        verifyNoInteractions(paymentUpsertRepository, idAllocator);
+    }
+
+    @Test
+    void ingestAll_shouldInsertEachExternalIdOnce_whenRepeatedWithinBatch() {
+        // Given
+        when(idAllocator.nextIds(eq("payment_groups_seq"), anyInt(), eq(1))).thenReturn(new long[]{10L});
+        when(idAllocator.nextIds(eq("payments_seq"), anyInt(), eq(1))).thenReturn(new long[]{20L});
+        when(paymentUpsertRepository.insertGroupsIfAbsent(new long[]{10L}, List.of(testRecord))).thenReturn(List.of(10L));
+        when(paymentUpsertRepository.insertPaymentsIfAbsent(new long[]{20L}, new long[]{10L}, testRecord.payments()))
+                .thenReturn(List.of(20L));
+
+        // When
+        int stored = paymentIngestService.ingestAll(List.of(testRecord, testRecord));
+
+        // Then
+        assertThat(stored).isEqualTo(1);
+    }
+
+    @Test
+    void ingestAll_shouldDropInvalidGroupsAndStoreTheRest() {
+        // Given
+        PaymentGroupRecord invalid = new PaymentGroupRecord(new PaymentGroupRecord.DebtorAccount("EE382200221020145686"),
+                "Debtor", LocalDate.now(), testRecord.payments(), "invalid-ext-id", "user", "tcif", "EE", "ingest-system");
+        when(idAllocator.nextIds(eq("payment_groups_seq"), anyInt(), eq(1))).thenReturn(new long[]{10L});
+        when(idAllocator.nextIds(eq("payments_seq"), anyInt(), eq(1))).thenReturn(new long[]{20L});
+        when(paymentUpsertRepository.insertGroupsIfAbsent(new long[]{10L}, List.of(testRecord))).thenReturn(List.of(10L));
+        when(paymentUpsertRepository.insertPaymentsIfAbsent(new long[]{20L}, new long[]{10L}, testRecord.payments()))
+                .thenReturn(List.of(20L));
+
+        // When
+        int stored = paymentIngestService.ingestAll(List.of(invalid, testRecord));
+
+        // Then
+        assertThat(stored).isEqualTo(1);
+        verify(paymentMetrics, times(1)).recordRejected("kafka");
+        assertThat(recentKeys.contains("invalid-ext-id")).isFalse();
+    }
+
+    @Test
+    void ingestAll_shouldDropNewGroup_whenAnEndToEndIdBelongsToAnotherPayment() {
+        // Given: the other group's second payment reuses an end-to-end id stored before
+        PaymentRecord taken = new PaymentRecord("taken-e2e", new PaymentRecord.InstructedAmount("EUR", new BigDecimal("7.00")),
+                "Creditor", new PaymentRecord.CreditorAccount("LV80BANK0000435195001"), "ingest test");
+        PaymentGroupRecord partial = new PaymentGroupRecord(testRecord.debtorAccount(), "Debtor", LocalDate.now(),
+                List.of(new PaymentRecord("own-e2e", taken.instructedAmount(), "Creditor", taken.creditorAccount(), "ingest test"), taken),
+                "partial-ext-id", "user", "tcif", "EE", "ingest-system");
+        when(idAllocator.nextIds(eq("payment_groups_seq"), anyInt(), eq(2))).thenReturn(new long[]{10L, 11L});
+        when(idAllocator.nextIds(eq("payments_seq"), anyInt(), eq(3))).thenReturn(new long[]{20L, 21L, 22L});
+        when(paymentUpsertRepository.insertGroupsIfAbsent(any(), anyList())).thenReturn(List.of(10L, 11L));
+        when(paymentUpsertRepository.insertPaymentsIfAbsent(any(), any(), anyList())).thenReturn(List.of(20L, 21L));
+
+        // When
+        int stored = paymentIngestService.ingestAll(List.of(testRecord, partial));
+
+        // Then
+        assertThat(stored).isEqualTo(1);
+        verify(paymentDeleteRepository).deletePayments(new long[]{11L});
+        verify(paymentDeleteRepository).deleteGroups(new long[]{11L});
+        verify(paymentTotalsRepository).addGroups(new long[]{10L});
+        verify(paymentMetrics).recordRejected("kafka");
+        verify(paymentMetrics).recordPayments(testRecord.payments());
+        verify(endToEndIdIndex).add("ingest-e2e");
+        verifyNoMoreInteractions(endToEndIdIndex);
+        assertThat(recentKeys.contains("ingest-ext-id")).isTrue();
+        assertThat(recentKeys.contains("partial-ext-id")).isFalse();
+    }
+
+    @Test
+    void recentKeyCache_shouldEvictLeastRecentlyUsed() {
+        // Given
+        RecentKeyCache cache = new RecentKeyCache(2);
+        cache.add("a");
+        cache.add("b");
+        cache.contains("a");
+
+        // When
+        cache.add("c");
+
+        // Then
+        assertThat(cache.contains("a")).isTrue();
+        assertThat(cache.contains("b")).isFalse();
+        assertThat(cache.contains("c")).isTrue();
+    }
+}
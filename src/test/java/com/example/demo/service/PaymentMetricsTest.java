@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentRecord;
+import com.example.demo.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentMetricsTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    private SimpleMeterRegistry registry;
+
+    private PaymentMetrics paymentMetrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        paymentMetrics = new PaymentMetrics(registry, outboxEventRepository);
+    }
+
+    @Test
+    void recordImport_shouldAmortizeDurationOverGroupsAndPayments() {
+        // When
+        paymentMetrics.recordImport(TimeUnit.MILLISECONDS.toNanos(100), 4, 10, true);
+
+        // Then
+        assertThat(registry.get("payments.import").tag("outcome", "committed").timer().count()).isEqualTo(1);
+        assertThat(registry.get("payments.import.group").timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(25);
+        assertThat(registry.get("payments.import.payment").timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(10);
+    }
+
+    @Test
+    void recordPayments_shouldCountAndSummarizeAmountsPerCurrency() {
+        // When
+        paymentMetrics.recordPayments(List.of(payment("EUR", "10.00"), payment("EUR", "5.50"), payment("USD", "1.00")));
+
+        // Then
+        assertThat(registry.get("payments.stored").tag("currency", "EUR").counter().count()).isEqualTo(2);
+        assertThat(registry.get("payments.amount").tag("currency", "EUR").summary().totalAmount()).isEqualTo(15.5);
+        assertThat(registry.get("payments.stored").tag("currency", "USD").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void recordConsumed_shouldRecordProcessingTimeAndRecordAge() {
+        // Given
+        long producedAt = System.currentTimeMillis() - 2_000;
+
+        // When
+        paymentMetrics.recordConsumed("payment.created", PaymentMetrics.MODE_BATCH,
+                TimeUnit.MILLISECONDS.toNanos(30), List.of(producedAt, producedAt));
+
+        // Then
+        assertThat(registry.get("payments.consumer.process").tags("topic", "payment.created", "mode", "batch")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get("payments.consumer.lag").tag("topic", "payment.created").timer().count()).isEqualTo(2);
+        assertThat(registry.get("payments.consumer.lag").timer().max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(2_000);
+    }
+
+    @Test
+    void outboxPendingGauge_shouldReportOutboxSize() {
+        // Given
+        when(outboxEventRepository.count()).thenReturn(42L);
+
+        // Then
+        assertThat(registry.get("payments.outbox.pending").gauge().value()).isEqualTo(42);
+    }
+
+    private static PaymentRecord payment(String currency, String amount) {
+        return new PaymentRecord("e2e-" + currency + amount, new PaymentRecord.InstructedAmount(currency, new BigDecimal(amount)),
+                "Creditor", new PaymentRecord.CreditorAccount("EE123456789"), "metrics test");
+    }
+}
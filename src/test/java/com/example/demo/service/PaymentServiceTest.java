@@ -1,26 +1,53 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.BulkDeleteResult;
+import com.example.demo.dto.PaymentGroupDiff;
+import com.example.demo.dto.PaymentGroupPatch;
+import com.example.demo.dto.PaymentGroupPage;
 import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentGroupSearch;
+import com.example.demo.dto.PaymentGroupView;
 import com.example.demo.dto.PaymentRecord;
+import com.example.demo.dto.PaymentTotal;
+import com.example.demo.dto.PaymentView;
 import com.example.demo.model.Payment;
 import com.example.demo.model.PaymentGroup;
+import com.example.demo.repository.PaymentDeleteRepository;
 import com.example.demo.repository.PaymentGroupRepository;
+import com.example.demo.repository.PaymentGroupSearchRepository;
 import com.example.demo.repository.PaymentRepository;
+import com.example.demo.repository.PaymentTotalsRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +62,30 @@ class PaymentServiceTest {
     @Mock
     private KafkaProducerService kafkaProducerService;
 
+    @Mock
+    private PaymentGroupCache paymentGroupCache;
+
+    @Mock
+    private PaymentMetrics paymentMetrics;
+
+    @Mock
+    private PaymentDeleteRepository paymentDeleteRepository;
+
+    @Mock
+    private PaymentGroupSearchRepository paymentGroupSearchRepository;
+
+    @Mock
+    private PaymentTotalsRepository paymentTotalsRepository;
+
+    @Mock
+    private EndToEndIdIndex endToEndIdIndex;
+
+    @Mock
+    private RecentKeyCache recentKeys;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private PaymentService paymentService;
 
@@ -43,6 +94,9 @@ class PaymentServiceTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(paymentService, "batchSize", 500);
+        ReflectionTestUtils.setField(paymentService, "maxPageSize", 500);
+
         PaymentRecord.InstructedAmount amount = new PaymentRecord.InstructedAmount("EUR", new BigDecimal("100.00"));
         PaymentRecord.CreditorAccount creditorAccount = new PaymentRecord.CreditorAccount("EE123456789");
         PaymentRecord paymentRecord = new PaymentRecord(
@@ -82,29 +136,187 @@ class PaymentServiceTest {
     @Test
     void importPayments_shouldSaveAndEmitEvents() {
         // Given
-        when(paymentGroupRepository.save(any(PaymentGroup.class))).thenReturn(testGroup);
+        when(paymentGroupRepository.saveAll(anyList())).thenReturn(List.of(testGroup));
 
         // When
         List<PaymentGroup> result = paymentService.importPayments(List.of(testGroupRecord));
 
         // Then
         assertThat(result).hasSize(1);
-        verify(paymentGroupRepository, times(1)).save(any(PaymentGroup.class));
-        verify(kafkaProducerService, times(1)).emitCreated(any(PaymentGroup.class));
+        verify(paymentGroupRepository, times(1)).saveAll(anyList());
+        verify(paymentGroupRepository, times(1)).flush();
+        verify(kafkaProducerService, times(1)).emitCreated(any(), any(PaymentGroupRecord.class));
+    }
+
+    @Test
+    void importPayments_shouldFlushOncePerBatch() {
+        // Given
+        ReflectionTestUtils.setField(paymentService, "batchSize", 2);
+        AtomicLong ids = new AtomicLong();
+        when(paymentGroupRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<PaymentGroup> groups = invocation.getArgument(0);
+            groups.forEach(group -> group.setId(ids.incrementAndGet()));
+            return groups;
+        });
+
+        // When
+        List<PaymentGroup> result = paymentService.importPayments(
+                List.of(testGroupRecord, testGroupRecord, testGroupRecord));
+
+        // Then
+        assertThat(result).hasSize(3);
+        verify(paymentGroupRepository, times(2)).saveAll(anyList());
+        verify(paymentGroupRepository, times(2)).flush();
+        verify(paymentTotalsRepository, times(1)).addGroups(new long[]{1L, 2L});
+        verify(paymentTotalsRepository, times(1)).addGroups(new long[]{3L});
+        verify(kafkaProducerService, times(3)).emitCreated(any(), any(PaymentGroupRecord.class));
+    }
+
+    @Test
+    void importPayments_shouldRejectDuplicateEndToEndIdsBeforeWriting() {
+        // Given
+        when(endToEndIdIndex.findDuplicates(List.of("end-to-end-123"))).thenReturn(Set.of("end-to-end-123"));
+
+        // When & Then
+        assertThatThrownBy(() -> paymentService.importPayments(List.of(testGroupRecord)))
+                .isInstanceOf(DuplicateEndToEndIdException.class)
+                .satisfies(e -> assertThat(((DuplicateEndToEndIdException) e).getDuplicates()).containsExactly("end-to-end-123"));
+        verify(paymentGroupRepository, never()).saveAll(anyList());
+        verify(kafkaProducerService, never()).emitCreated(any(), any(PaymentGroupRecord.class));
+    }
+
+    @Test
+    void importPayments_shouldReportUniqueViolation_asDuplicateEndToEndId() {
+        // Given: another instance stored the id after this one's index last saw it
+        PSQLException duplicate = new PSQLException(new ServerErrorMessage("SERROR\0C23505\0"
+                + "Mduplicate key value violates unique constraint \"payments_end_to_end_identification_key\"\0"
+                + "DKey (end_to_end_identification)=(end-to-end-123) already exists.\0"));
+        when(paymentGroupRepository.saveAll(anyList())).thenReturn(List.of(testGroup));
+        doThrow(new DataIntegrityViolationException("could not execute batch", new ConstraintViolationException(
+                "could not execute batch", duplicate, "payments_end_to_end_identification_key")))
+                .when(paymentGroupRepository).flush();
+
+        // When & Then
+        assertThatThrownBy(() -> paymentService.importPayments(List.of(testGroupRecord)))
+                .isInstanceOf(DuplicateEndToEndIdException.class)
+                .satisfies(e -> assertThat(((DuplicateEndToEndIdException) e).getDuplicates()).containsExactly("end-to-end-123"));
+        verify(kafkaProducerService, never()).emitCreated(any(), any(PaymentGroupRecord.class));
+    }
+
+    @Test
+    void importPayments_shouldAddStoredEndToEndIdsToIndex() {
+        // Given
+        when(paymentGroupRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<PaymentGroup> groups = invocation.getArgument(0);
+            groups.forEach(group -> group.setId(1L));
+            return groups;
+        });
+
+        // When
+        paymentService.importPayments(List.of(testGroupRecord));
+
+        // Then
+        verify(endToEndIdIndex).add("end-to-end-123");
+    }
+
+    @Test
+    void importGroups_shouldSaveAndRecordMetrics_whenGroupHasNoPaymentList() {
+        // Given
+        testGroup.setPayments(null);
+        when(paymentGroupRepository.saveAll(anyList())).thenReturn(List.of(testGroup));
+
+        // When
+        List<PaymentGroup> result = paymentService.importGroups(List.of(testGroup));
+
+        // Then
+        assertThat(result).containsExactly(testGroup);
+        verify(paymentMetrics).recordImport(anyLong(), eq(1), eq(0), eq(true));
+        verify(paymentMetrics, never()).recordPayment(any(), any());
     }
 
     @Test
     void getAllGroups_shouldReturnAllGroups() {
         // Given
-        when(paymentGroupRepository.findAll()).thenReturn(List.of(testGroup));
+        when(paymentGroupRepository.findAllWithPayments()).thenReturn(List.of(testGroup));
 
         // When
-        List<PaymentGroup> result = paymentService.getAllGroups();
+        List<PaymentGroupView> result = paymentService.getAllGroups();
 
         // Then
         assertThat(result).hasSize(1);
-        assertThat(result.get(0).getDebtorName()).isEqualTo("Test Debtor");
-        verify(paymentGroupRepository, times(1)).findAll();
+        assertThat(result.get(0).debtorName()).isEqualTo("Test Debtor");
+        verify(paymentGroupRepository, times(1)).findAllWithPayments();
+    }
+
+    @Test
+    void getGroupsPage_shouldReturnCursor_whenPageIsFull() {
+        // Given
+        when(paymentGroupRepository.findIdsAfter(0L, Limit.of(1))).thenReturn(List.of(1L));
+        when(paymentGroupRepository.findWithPaymentsByIdInOrderByIdAsc(List.of(1L))).thenReturn(List.of(testGroup));
+
+        // When
+        PaymentGroupPage page = paymentService.getGroupsPage(null, 1);
+
+        // Then
+        assertThat(page.items()).hasSize(1);
+        assertThat(page.nextCursor()).isEqualTo(1L);
+    }
+
+    @Test
+    void getGroupsPage_shouldClampLimitAndEndCursor_whenLastPage() {
+        // Given
+        ReflectionTestUtils.setField(paymentService, "maxPageSize", 10);
+        when(paymentGroupRepository.findIdsAfter(5L, Limit.of(10))).thenReturn(List.of(1L));
+        when(paymentGroupRepository.findWithPaymentsByIdInOrderByIdAsc(List.of(1L))).thenReturn(List.of(testGroup));
+
+        // When
+        PaymentGroupPage page = paymentService.getGroupsPage(5L, 10_000);
+
+        // Then
+        assertThat(page.items()).hasSize(1);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void searchGroups_shouldPageMatchingIds() {
+        // Given
+        PaymentGroupSearch search = new PaymentGroupSearch(LocalDate.of(2025, 1, 15), LocalDate.of(2025, 1, 15),
+                "EE", "mobile-app", null, null, null);
+        when(paymentGroupSearchRepository.findIds(search, 3L, 1)).thenReturn(List.of(4L));
+        when(paymentGroupRepository.findWithPaymentsByIdInOrderByIdAsc(List.of(4L))).thenReturn(List.of(testGroup));
+
+        // When
+        PaymentGroupPage page = paymentService.searchGroups(search, 3L, 1);
+
+        // Then
+        assertThat(page.items()).hasSize(1);
+        assertThat(page.nextCursor()).isEqualTo(4L);
+        verify(paymentGroupRepository, never()).findIdsAfter(any(), any());
+    }
+
+    @Test
+    void getGroupView_shouldFetchGroupWithPayments() {
+        // Given
+        testGroup.addPayment(Payment.builder().id(7L).endToEndIdentification("end-to-end-123").build());
+        when(paymentGroupRepository.findWithPaymentsById(1L)).thenReturn(Optional.of(testGroup));
+
+        // When
+        PaymentGroupView result = paymentService.getGroupView(1L);
+
+        // Then
+        assertThat(result.debtorName()).isEqualTo("Test Debtor");
+        assertThat(result.payments()).extracting(PaymentView::endToEndIdentification).containsExactly("end-to-end-123");
+    }
+
+    @Test
+    void getGroupView_shouldThrowException_whenNotFound() {
+        // Given
+        when(paymentGroupRepository.findWithPaymentsById(999L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> paymentService.getGroupView(999L))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Payment group not found");
     }
 
     @Test
@@ -134,18 +346,249 @@ class PaymentServiceTest {
     }
 
     @Test
-    void deleteGroup_shouldDeleteAndEmitEvent() {
+    void deleteGroup_shouldDeleteWithoutLoadingAndEmitEvent() {
         // Given
-        when(paymentGroupRepository.findById(1L)).thenReturn(Optional.of(testGroup));
-        doNothing().when(paymentGroupRepository).delete(any(PaymentGroup.class));
-        doNothing().when(kafkaProducerService).emitDeleted(any());
+        when(paymentGroupRepository.findExternalIdById(1L)).thenReturn(Optional.of(testGroup.getExternalId()));
 
         // When
         paymentService.deleteGroup(1L);
 
         // Then
-        verify(paymentGroupRepository, times(1)).findById(1L);
-        verify(paymentGroupRepository, times(1)).delete(testGroup);
-        verify(kafkaProducerService, times(1)).emitDeleted(1L);
+        InOrder inOrder = inOrder(paymentTotalsRepository, paymentRepository, paymentGroupRepository);
+        inOrder.verify(paymentTotalsRepository).subtractGroups(new long[]{1L});
+        inOrder.verify(paymentRepository).deleteByPaymentGroupIdIn(List.of(1L));
+        inOrder.verify(paymentGroupRepository).deleteByIdIn(List.of(1L));
+        verify(paymentGroupRepository, never()).findById(any());
+        verify(paymentGroupRepository, never()).delete(any(PaymentGroup.class));
+        verify(kafkaProducerService, times(1)).emitDeleted(testGroup.getExternalId(), 1L);
+        verify(recentKeys, times(1)).remove(testGroup.getExternalId());
+    }
+
+    @Test
+    void deleteGroup_shouldThrowException_whenNotFound() {
+        // Given
+        when(paymentGroupRepository.findExternalIdById(999L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> paymentService.deleteGroup(999L))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Payment group not found");
+        verifyNoInteractions(paymentRepository, kafkaProducerService);
+    }
+
+    @Test
+    void deleteGroupsById_shouldDeleteExistingGroupsAndEmitOneBatchOfEvents() {
+        // Given
+        Map<Long, String> existing = new LinkedHashMap<>();
+        existing.put(1L, "ext-1");
+        existing.put(2L, "ext-2");
+        when(paymentDeleteRepository.lockGroups(new long[]{1L, 2L, 3L})).thenReturn(existing);
+        when(paymentDeleteRepository.deletePayments(new long[]{1L, 2L})).thenReturn(7);
+        when(paymentDeleteRepository.deleteGroups(new long[]{1L, 2L})).thenReturn(2);
+
+        // When
+        BulkDeleteResult result = paymentService.deleteGroupsById(List.of(1L, 2L, 3L));
+
+        // Then
+        assertThat(result).isEqualTo(new BulkDeleteResult(2, 7));
+        InOrder inOrder = inOrder(paymentTotalsRepository, paymentDeleteRepository);
+        inOrder.verify(paymentTotalsRepository).subtractGroups(new long[]{1L, 2L});
+        inOrder.verify(paymentDeleteRepository).deletePayments(new long[]{1L, 2L});
+        inOrder.verify(paymentDeleteRepository).deleteGroups(new long[]{1L, 2L});
+        verify(paymentGroupCache, times(1)).evict(existing.keySet());
+        verify(kafkaProducerService, times(1)).emitDeletedAll(Map.of("ext-1", 1L, "ext-2", 2L));
+        verify(kafkaProducerService, never()).emitDeleted(any(), any());
+        verify(recentKeys).remove("ext-1");
+        verify(recentKeys).remove("ext-2");
+    }
+
+    @Test
+    void deleteGroupsBySource_shouldDoNothing_whenNoGroupMatches() {
+        // Given
+        LocalDate date = LocalDate.of(2025, 1, 1);
+        when(paymentDeleteRepository.lockGroups("batch-system", date)).thenReturn(Map.of());
+
+        // When
+        BulkDeleteResult result = paymentService.deleteGroupsBySource("batch-system", date);
+
+        // Then
+        assertThat(result).isEqualTo(new BulkDeleteResult(0, 0));
+        verify(paymentDeleteRepository, never()).deleteGroups(any());
+        verifyNoInteractions(kafkaProducerService);
+    }
+
+    @Test
+    void deleteGroups_shouldDeletePaymentsThenGroupsWithoutEmitting() {
+        // Given
+        List<Long> ids = List.of(1L, 2L);
+        when(paymentGroupRepository.findExternalIdsByIdIn(ids)).thenReturn(List.of("ext-1", "ext-2"));
+        when(paymentRepository.deleteByPaymentGroupIdIn(ids)).thenReturn(3);
+        when(paymentGroupRepository.deleteByIdIn(ids)).thenReturn(2);
+
+        // When
+        int deleted = paymentService.deleteGroups(ids);
+
+        // Then
+        assertThat(deleted).isEqualTo(2);
+        InOrder inOrder = inOrder(paymentRepository, paymentGroupRepository);
+        inOrder.verify(paymentRepository).deleteByPaymentGroupIdIn(ids);
+        inOrder.verify(paymentGroupRepository).deleteByIdIn(ids);
+        verify(paymentGroupCache, times(1)).evict(ids);
+        verify(recentKeys).remove("ext-1");
+        verify(recentKeys).remove("ext-2");
+        verifyNoInteractions(kafkaProducerService);
+    }
+
+    @Test
+    void modifyGroup_shouldUpdateOnlyListedPaymentAndEmitDiff() {
+        // Given
+        testGroup.setVersion(3L);
+        Payment payment = payment("e2e-1", 5L);
+        when(paymentGroupRepository.findById(1L)).thenReturn(Optional.of(testGroup));
+        when(paymentRepository.findByPaymentGroupIdAndEndToEndIdentificationIn(1L, Set.of("e2e-1")))
+                .thenReturn(List.of(payment));
+        PaymentGroupPatch patch = new PaymentGroupPatch(3L, null, "Test Debtor", null, List.of(
+                new PaymentGroupPatch.PaymentPatch("e2e-1", 5L,
+                        new PaymentRecord.InstructedAmount("EUR", new BigDecimal("10.5")), null, null, "Updated")));
+
+        // When
+        PaymentGroupDiff diff = paymentService.modifyGroup(1L, patch);
+
+        // Then
+        assertThat(payment.getRemittanceInformation()).isEqualTo("Updated");
+        assertThat(payment.getAmount()).isEqualByComparingTo("10.50");
+        assertThat(diff.groupChanged()).isFalse();
+        assertThat(diff.payments()).containsExactly(new PaymentGroupDiff.PaymentDiff(
+                "e2e-1", 5L, null, null, null, null, "Updated"));
+        verify(entityManager, times(1)).flush();
+        verify(kafkaProducerService, times(1)).emitModified("ext-id-123", diff);
+    }
+
+    @Test
+    void modifyGroup_shouldMoveAmountBetweenTotals_whenAmountChanges() {
+        // Given
+        Payment payment = payment("e2e-1", 5L);
+        when(paymentGroupRepository.findById(1L)).thenReturn(Optional.of(testGroup));
+        when(paymentRepository.findByPaymentGroupIdAndEndToEndIdentificationIn(1L, Set.of("e2e-1")))
+                .thenReturn(List.of(payment));
+        PaymentGroupPatch patch = new PaymentGroupPatch(null, null, null, null, List.of(
+                new PaymentGroupPatch.PaymentPatch("e2e-1", null,
+                        new PaymentRecord.InstructedAmount("USD", new BigDecimal("12.00")), null, null, null)));
+
+        // When
+        paymentService.modifyGroup(1L, patch);
+
+        // Then
+        LocalDate date = testGroup.getRequestedExecutionDate();
+        verify(paymentTotalsRepository, times(1)).add(List.of(
+                new PaymentTotal("EE987654321", "EUR", date, -1, new BigDecimal("-10.50")),
+                new PaymentTotal("EE987654321", "USD", date, 1, new BigDecimal("12.00"))));
+        verify(paymentTotalsRepository, never()).subtractGroups(any());
+    }
+
+    @Test
+    void modifyGroup_shouldSumTotalsDeltasPerKey_whenSeveralPaymentsChange() {
+        // Given: both payments are 10.50 EUR
+        Payment first = payment("e2e-1", 5L);
+        Payment second = payment("e2e-2", 6L);
+        when(paymentGroupRepository.findById(1L)).thenReturn(Optional.of(testGroup));
+        when(paymentRepository.findByPaymentGroupIdAndEndToEndIdentificationIn(1L, Set.of("e2e-1", "e2e-2")))
+                .thenReturn(List.of(first, second));
+        PaymentGroupPatch patch = new PaymentGroupPatch(null, null, null, null, List.of(
+                new PaymentGroupPatch.PaymentPatch("e2e-1", null,
+                        new PaymentRecord.InstructedAmount("EUR", new BigDecimal("12.00")), null, null, null),
+                new PaymentGroupPatch.PaymentPatch("e2e-2", null,
+                        new PaymentRecord.InstructedAmount("EUR", new BigDecimal("5.25")), null, null, null)));
+
+        // When
+        paymentService.modifyGroup(1L, patch);
+
+        // Then
+        verify(paymentTotalsRepository, times(1)).add(List.of(new PaymentTotal("EE987654321", "EUR",
+                testGroup.getRequestedExecutionDate(), 0, new BigDecimal("-3.75"))));
+    }
+
+    @Test
+    void modifyGroup_shouldMoveWholeGroupBetweenTotals_whenDebtorChanges() {
+        // Given
+        when(paymentGroupRepository.findById(1L)).thenReturn(Optional.of(testGroup));
+        PaymentGroupPatch patch = new PaymentGroupPatch(null,
+                new PaymentGroupRecord.DebtorAccount("LV80BANK0000435195001"), null, null, null);
+
+        // When
+        paymentService.modifyGroup(1L, patch);
+
+        // Then
+        InOrder inOrder = inOrder(paymentTotalsRepository, entityManager);
+        inOrder.verify(paymentTotalsRepository).subtractGroups(new long[]{1L});
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(paymentTotalsRepository).addGroups(new long[]{1L});
+        verify(paymentTotalsRepository, never()).add(any());
+    }
+
+    @Test
+    void modifyGroup_shouldNotEmit_whenNothingChanges() {
+        // Given
+        when(paymentGroupRepository.findById(1L)).thenReturn(Optional.of(testGroup));
+        PaymentGroupPatch patch = new PaymentGroupPatch(null, null, "Test Debtor", null, null);
+
+        // When
+        PaymentGroupDiff diff = paymentService.modifyGroup(1L, patch);
+
+        // Then
+        assertThat(diff.hasChanges()).isFalse();
+        verifyNoInteractions(paymentRepository, kafkaProducerService);
+    }
+
+    @Test
+    void modifyGroup_shouldRejectStaleVersion() {
+        // Given
+        testGroup.setVersion(4L);
+        when(paymentGroupRepository.findById(1L)).thenReturn(Optional.of(testGroup));
+        PaymentGroupPatch patch = new PaymentGroupPatch(3L, null, "Renamed", null, null);
+
+        // When & Then
+        assertThatThrownBy(() -> paymentService.modifyGroup(1L, patch))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(testGroup.getDebtorName()).isEqualTo("Test Debtor");
+        verifyNoInteractions(kafkaProducerService);
+    }
+
+    @Test
+    void applyModified_shouldOnlyApplyChangesNewerThanLocalVersion() {
+        // Given
+        testGroup.setVersion(2L);
+        Payment current = payment("e2e-1", 7L);
+        Payment stale = payment("e2e-2", 1L);
+        when(paymentGroupRepository.findByExternalId("ext-id-123")).thenReturn(Optional.of(testGroup));
+        when(paymentRepository.findByPaymentGroupIdAndEndToEndIdentificationIn(eq(1L), any()))
+                .thenReturn(List.of(current, stale));
+        PaymentGroupDiff diff = new PaymentGroupDiff(1L, "ext-id-123", 2L, null, "Renamed", null, List.of(
+                new PaymentGroupDiff.PaymentDiff("e2e-1", 7L, null, null, "Ignored", null, null),
+                new PaymentGroupDiff.PaymentDiff("e2e-2", 2L, null, null, "New Creditor", null, null)));
+
+        // When
+        int updated = paymentService.applyModified(List.of(diff));
+
+        // Then
+        assertThat(updated).isEqualTo(1);
+        assertThat(testGroup.getDebtorName()).isEqualTo("Test Debtor");
+        assertThat(current.getCreditorName()).isEqualTo("Creditor");
+        assertThat(stale.getCreditorName()).isEqualTo("New Creditor");
+        verify(paymentGroupCache, times(1)).evict(List.of(1L));
+        verifyNoInteractions(kafkaProducerService);
+    }
+
+    private static Payment payment(String endToEndId, long version) {
+        return Payment.builder()
+                .id(version * 10)
+                .version(version)
+                .endToEndIdentification(endToEndId)
+                .currency("EUR")
+                .amount(new BigDecimal("10.50"))
+                .creditorName("Creditor")
+                .creditorIban("LV80BANK0000435195001")
+                .remittanceInformation("Invoice")
+                .build();
     }
 }
@@ -0,0 +1,193 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ImportError;
+import com.example.demo.dto.ImportSummary;
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import com.example.demo.model.PaymentGroup;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentStreamImportServiceTest {
+
+    @Mock
+    private PaymentService paymentService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private PaymentStreamImportService streamImportService;
+
+    @BeforeEach
+    void setUp() {
+        streamImportService = new PaymentStreamImportService(paymentService, objectMapper, new PaymentValidator(), 2, 2);
+        ReflectionTestUtils.setField(streamImportService, "batchSize", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamImportService.destroy();
+    }
+
+    private PaymentGroupRecord groupRecord(String externalId) {
+        PaymentRecord paymentRecord = new PaymentRecord(
+                externalId + "-e2e",
+                new PaymentRecord.InstructedAmount("EUR", new BigDecimal("10.00")),
+                "Creditor",
+                new PaymentRecord.CreditorAccount("LV80BANK0000435195001"),
+                "stream test"
+        );
+        return new PaymentGroupRecord(
+                new PaymentGroupRecord.DebtorAccount("EE382200221020145685"),
+                "Debtor",
+                LocalDate.now(),
+                List.of(paymentRecord),
+                externalId,
+                "user",
+                "tcif",
+                "EE",
+                "stream-system"
+        );
+    }
+
+    private ByteArrayInputStream json(List<PaymentGroupRecord> records) throws Exception {
+        return new ByteArrayInputStream(objectMapper.writeValueAsBytes(records));
+    }
+
+    @Test
+    void importStream_shouldPersistInChunks() throws Exception {
+        // When
+        ImportSummary summary = streamImportService.importStream(
+                json(List.of(groupRecord("a"), groupRecord("b"), groupRecord("c"))));
+
+        // Then
+        assertThat(summary.groupsImported()).isEqualTo(3);
+        assertThat(summary.paymentsImported()).isEqualTo(3);
+        assertThat(summary.groupsFailed()).isZero();
+        verify(paymentService, times(1)).importGroups(argThat(chunk -> chunk.size() == 2
+                && chunk.get(0).getExternalId().equals("a") && chunk.get(1).getExternalId().equals("b")));
+        verify(paymentService, times(1)).importGroups(argThat(chunk -> chunk.size() == 1
+                && chunk.get(0).getExternalId().equals("c")));
+    }
+
+    @Test
+    void importStream_shouldReportFailedGroups_whenChunkFails() throws Exception {
+        // Given
+        when(paymentService.importGroups(anyList())).thenThrow(new RuntimeException("duplicate key"));
+        when(paymentService.importPayments(anyList())).thenAnswer(invocation -> {
+            List<PaymentGroupRecord> chunk = invocation.getArgument(0);
+            if (chunk.stream().anyMatch(r -> r.externalId().equals("bad"))) {
+                throw new RuntimeException("duplicate key");
+            }
+            return List.of();
+        });
+
+        // When
+        ImportSummary summary = streamImportService.importStream(
+                json(List.of(groupRecord("good"), groupRecord("bad"))));
+
+        // Then
+        assertThat(summary.groupsImported()).isEqualTo(1);
+        assertThat(summary.groupsFailed()).isEqualTo(1);
+        assertThat(summary.failedExternalIds()).containsExactly("bad");
+        assertThat(summary.errors()).containsExactly(new ImportError(1, "bad", List.of("duplicate key")));
+    }
+
+    @Test
+    void importStream_shouldImportCleanGroupsAsChunkAndRetryOnlyDuplicates() throws Exception {
+        // Given
+        when(paymentService.importGroups(anyList())).thenAnswer(invocation -> {
+            List<PaymentGroup> chunk = invocation.getArgument(0);
+            if (chunk.stream().anyMatch(group -> group.getExternalId().equals("dup"))) {
+                throw new DuplicateEndToEndIdException(Set.of("dup-e2e"));
+            }
+            return chunk;
+        });
+        when(paymentService.importPayments(anyList())).thenThrow(new DuplicateEndToEndIdException(Set.of("dup-e2e")));
+
+        // When
+        ImportSummary summary = streamImportService.importStream(
+                json(List.of(groupRecord("dup"), groupRecord("clean"))));
+
+        // Then
+        assertThat(summary.groupsImported()).isEqualTo(1);
+        assertThat(summary.failedExternalIds()).containsExactly("dup");
+        assertThat(summary.errors().get(0).errors()).containsExactly("1 end-to-end ids already exist or are repeated: dup-e2e");
+        verify(paymentService).importGroups(argThat(chunk -> chunk.size() == 1 && chunk.get(0).getExternalId().equals("clean")));
+        verify(paymentService, times(1)).importPayments(anyList());
+    }
+
+    @Test
+    void importStream_shouldReportInvalidGroupsAndImportTheRest() throws Exception {
+        // Given
+        PaymentGroupRecord good = groupRecord("good");
+        PaymentRecord badPayment = new PaymentRecord("bad-e2e", new PaymentRecord.InstructedAmount("XXY", new BigDecimal("-1")),
+                "Creditor", new PaymentRecord.CreditorAccount("LV80BANK0000435195002"), "bad");
+        PaymentGroupRecord bad = new PaymentGroupRecord(good.debtorAccount(), "Debtor", LocalDate.now(),
+                List.of(good.payments().get(0), badPayment), "bad", "user", "tcif", "EE", "stream-system");
+        String unreadable = "{\"externalId\":\"unreadable\",\"payments\":[{\"instructedAmount\":{\"amount\":\"ten\"}}]}";
+        String body = "[" + objectMapper.writeValueAsString(good) + "," + objectMapper.writeValueAsString(bad) + "," + unreadable + "]";
+
+        // When
+        ImportSummary summary = streamImportService.importStream(new ByteArrayInputStream(body.getBytes()));
+
+        // Then
+        assertThat(summary.groupsImported()).isEqualTo(1);
+        assertThat(summary.groupsFailed()).isEqualTo(2);
+        assertThat(summary.errors()).extracting(ImportError::externalId).containsExactly("bad", "unreadable");
+        assertThat(summary.errors().get(0).index()).isEqualTo(1);
+        assertThat(summary.errors().get(0).errors()).containsExactly(
+                "payments[1].creditorAccount.iban: is not a valid IBAN: check digits do not match",
+                "payments[1].instructedAmount.currency: is not an ISO 4217 code",
+                "payments[1].instructedAmount.amount: must be positive");
+        assertThat(summary.errors().get(1).errors()).singleElement().asString().startsWith("Unreadable payment group");
+        verify(paymentService, times(1)).importGroups(argThat(chunk -> chunk.size() == 1));
+    }
+
+    @Test
+    void importStream_shouldRejectNonArrayBody() {
+        // When & Then
+        assertThatThrownBy(() -> streamImportService.importStream(new ByteArrayInputStream("{}".getBytes())))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(paymentService);
+    }
+
+    @Test
+    void importStream_shouldFail_whenArrayIsIncompleteOrHasNonObjectElements() throws Exception {
+        // Given
+        String good = objectMapper.writeValueAsString(groupRecord("good"));
+        List<String> bodies = List.of(
+                "[" + good + ",",
+                "[" + good + "," + good.substring(0, good.length() / 2),
+                "[" + good + ",null," + good + "]",
+                "[" + good + "] trailing",
+                "[" + good + "][" + good + "]");
+
+        // When & Then
+        for (String body : bodies) {
+            assertThatThrownBy(() -> streamImportService.importStream(new ByteArrayInputStream(body.getBytes())))
+                    .as(body)
+                    .isInstanceOfAny(IllegalArgumentException.class, UncheckedIOException.class);
+        }
+        verify(paymentService, never()).importGroups(argThat(chunk -> chunk.size() > 1));
+    }
+}
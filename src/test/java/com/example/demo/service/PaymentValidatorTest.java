@@ -0,0 +1,153 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PaymentGroupPatch;
+import com.example.demo.dto.PaymentGroupRecord;
+import com.example.demo.dto.PaymentRecord;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentValidatorTest {
+
+    private final PaymentValidator validator = new PaymentValidator();
+
+    @Test
+    void validate_shouldAcceptValidGroup() {
+        // Given
+        PaymentGroupRecord group = group("EE382200221020145685", payment("EUR", "10.50", "LV80BANK0000435195001"));
+
+        // When & Then
+        assertThat(validator.validate(group)).isEmpty();
+    }
+
+    @Test
+    void validate_shouldReportEveryProblemWithItsField() {
+        // Given
+        PaymentGroupRecord group = group("EE382200221020145686",
+                payment("EUR", "1.00", "LV80BANK0000435195001"),
+                payment("JPY", "1.5", "not-an-iban"));
+
+        // When
+        List<String> errors = validator.validate(group);
+
+        // Then
+        assertThat(errors).containsExactly(
+                "debtorAccount.iban: is not a valid IBAN: check digits do not match",
+                "payments[1].creditorAccount.iban: is not a valid IBAN: expected a country code, 2 check digits and up to 30 letters or digits",
+                "payments[1].instructedAmount.amount: has more decimals than JPY allows");
+    }
+
+    @Test
+    void validate_shouldRejectDecimalsThatWouldBeRoundedWhenStored() {
+        // Given: BHD has three decimals, the amount columns two
+        PaymentGroupRecord group = group("EE382200221020145685",
+                payment("BHD", "1.005", "LV80BANK0000435195001"),
+                payment("BHD", "1.250", "LV80BANK0000435195001"));
+
+        // When & Then
+        assertThat(validator.validate(group)).containsExactly(
+                "payments[0].instructedAmount.amount: has more than 2 decimals, the most that is stored");
+    }
+
+    @Test
+    void validate_shouldRejectAmountBeyondMinorUnitRange() {
+        // Given
+        PaymentGroupRecord group = group("EE382200221020145685",
+                payment("EUR", "99999999999999999.00", "LV80BANK0000435195001"),
+                payment("JPY", "999999999999999999", "LV80BANK0000435195001"),
+                payment("JPY", "99999999999999999", "LV80BANK0000435195001"));
+
+        // When & Then
+        assertThat(validator.validate(group)).containsExactly(
+                "payments[0].instructedAmount.amount: is too large",
+                "payments[1].instructedAmount.amount: is too large");
+    }
+
+    @Test
+    void validate_shouldCheckRequiredFieldsAndColumnLengths() {
+        // Given
+        PaymentRecord payment = new PaymentRecord("validator-e2e", new PaymentRecord.InstructedAmount("EUR", new BigDecimal("1.00")),
+                null, new PaymentRecord.CreditorAccount("LV80BANK0000435195001"), "r".repeat(256));
+        PaymentGroupRecord group = new PaymentGroupRecord(new PaymentGroupRecord.DebtorAccount("EE382200221020145685"),
+                " ", LocalDate.now(), List.of(payment), "x".repeat(256), null, "t".repeat(65), "EST", "");
+
+        // When & Then
+        assertThat(validator.validate(group)).containsExactly(
+                "externalId: must be at most 255 characters",
+                "debtorName: is required",
+                "uname: is required",
+                "tcif: must be at most 64 characters",
+                "country: must be at most 2 characters",
+                "sourceSystem: is required",
+                "payments[0].creditorName: is required",
+                "payments[0].remittanceInformationUnstructured: must be at most 255 characters");
+    }
+
+    @Test
+    void ibanProblem_shouldCheckTheRegisteredLengthOfTheCountry() {
+        assertThat(PaymentValidator.ibanProblem("DE89370400440532013000")).isNull();
+        assertThat(PaymentValidator.ibanProblem("NO9386011117947")).isNull();
+        assertThat(PaymentValidator.ibanProblem("DE8937040044053201300"))
+                .isEqualTo("is not a valid IBAN: DE IBANs have 22 characters");
+        assertThat(PaymentValidator.ibanProblem("US64SVBKUS6S3300958879"))
+                .isEqualTo("is not a valid IBAN: US has no IBANs");
+        assertThat(PaymentValidator.ibanProblem("")).isEqualTo("is required");
+    }
+
+    @Test
+    void endToEndIdProblem_shouldApplySepaRules() {
+        assertThat(PaymentValidator.endToEndIdProblem("INV-2025/01 (2),'+?:.")).isNull();
+        assertThat(PaymentValidator.endToEndIdProblem("x".repeat(36))).isEqualTo("must be at most 35 characters");
+        assertThat(PaymentValidator.endToEndIdProblem("invoice_1")).startsWith("must only contain");
+        assertThat(PaymentValidator.endToEndIdProblem("Zahlung-ü")).startsWith("must only contain");
+        assertThat(PaymentValidator.endToEndIdProblem("/invoice")).isEqualTo("must not start or end with '/' or contain '//'");
+        assertThat(PaymentValidator.endToEndIdProblem("a//b")).isEqualTo("must not start or end with '/' or contain '//'");
+        assertThat(PaymentValidator.endToEndIdProblem(" ")).isEqualTo("is required");
+    }
+
+    @Test
+    void isValidIban_shouldCheckLengthCharactersAndChecksum() {
+        assertThat(PaymentValidator.isValidIban("GB82WEST12345698765432")).isTrue();
+        assertThat(PaymentValidator.isValidIban("GB82WEST12345698765433")).isFalse();
+        assertThat(PaymentValidator.isValidIban("gb82WEST12345698765432")).isFalse();
+        assertThat(PaymentValidator.isValidIban("GB82 WEST 1234 5698 7654 32")).isFalse();
+        assertThat(PaymentValidator.isValidIban("EE123456789")).isFalse();
+        assertThat(PaymentValidator.isValidIban(null)).isFalse();
+    }
+
+    private static PaymentGroupRecord group(String debtorIban, PaymentRecord... payments) {
+        return new PaymentGroupRecord(new PaymentGroupRecord.DebtorAccount(debtorIban), "Debtor", LocalDate.now(),
+                List.of(payments), "validator-ext-id", "user", "tcif", "EE", "system");
+    }
+
+    private static PaymentRecord payment(String currency, String amount, String creditorIban) {
+        return new PaymentRecord("validator-e2e", new PaymentRecord.InstructedAmount(currency, new BigDecimal(amount)),
+                "Creditor", new PaymentRecord.CreditorAccount(creditorIban), "validator test");
+    }
+
+    @Test
+    void validatePatch_shouldCheckOnlyTheFieldsItSets() {
+        // Given
+        PaymentGroupPatch patch = new PaymentGroupPatch(1L, null, " ", null, List.of(
+                new PaymentGroupPatch.PaymentPatch("e2e-1", 1L, null, null, null, "Remittance only"),
+                new PaymentGroupPatch.PaymentPatch("e2e-2", 1L, null, "c".repeat(256), null, null),
+                new PaymentGroupPatch.PaymentPatch("e2e-1", 1L,
+                        new PaymentRecord.InstructedAmount("EUR", new BigDecimal("-1")), null,
+                        new PaymentRecord.CreditorAccount("not-an-iban"), null)));
+
+        // When
+        List<String> errors = validator.validate(patch);
+
+        // Then
+        assertThat(errors).containsExactly(
+                "debtorName: must not be blank",
+                "payments[1].creditorName: must be at most 255 characters",
+                "payments[2].endToEndIdentification: is listed more than once",
+                "payments[2].creditorAccount.iban: is not a valid IBAN: expected a country code, 2 check digits and up to 30 letters or digits",
+                "payments[2].instructedAmount.amount: must be positive");
+    }
+}